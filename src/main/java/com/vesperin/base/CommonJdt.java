@@ -393,13 +393,17 @@ public class CommonJdt {
   }
 
 
+  @SuppressWarnings("UnusedParameters")
   public static boolean isNodeWithinSelection(Source src, ASTNode node, Location selection) {
 
-    final Location nodeLocation = Locations.locate(src, node);
+    final int start     = selection.getStart().getOffset();
+    final int end       = selection.getEnd().getOffset();
+    final int nodeStart = node.getStartPosition();
+    final int nodeEnd   = nodeStart + node.getLength();
 
-    return (Locations.inside(nodeLocation, selection))
-      || (Locations.covers(selection, nodeLocation))
-      || selection.same(nodeLocation);
+    // inside(..) also holds when both ranges are the same
+    return (Locations.inside(nodeStart, nodeEnd, start, end))
+      || (Locations.covers(start, end, nodeStart, nodeEnd));
   }
 
   public static boolean isParent(ASTNode node, ASTNode parent) {
@@ -417,18 +421,22 @@ public class CommonJdt {
   }
 
   public static boolean isMissingTypeDeclarationUnit(ASTNode parsed) {
+    // a type declaration always prints as (at least) "class Name {}", so
+    // there is no need to flatten it just to compare it against ""
     if (parsed instanceof TypeDeclaration) {
       final TypeDeclaration unit = (TypeDeclaration) parsed;
-      return !"".equals(unit.toString()) && "MISSING".equals(unit.getName().getIdentifier());
+      return "MISSING".equals(unit.getName().getIdentifier());
     }
 
     return false;
   }
 
   public static boolean isWellConstructedCompilationUnit(ASTNode parsed) {
+    // a unit with at least one type is never printed as ""; checking its
+    // types is enough, without flattening the whole tree
     if (parsed instanceof CompilationUnit) {
       final CompilationUnit unit = (CompilationUnit) parsed;
-      return !"".equals(unit.toString()) && !unit.types().isEmpty();
+      return !unit.types().isEmpty();
     }
 
     return false;
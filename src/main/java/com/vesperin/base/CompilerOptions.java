@@ -0,0 +1,39 @@
+package com.vesperin.base;
+
+import com.vesperin.utils.Immutable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * JavaCore's compiler options, set to a given compliance level. Each
+ * level's options are computed once and shared, read-only, by every
+ * parser; {@link org.eclipse.jdt.core.dom.ASTParser} copies the options
+ * it is given.
+ *
+ * @author Huascar Sanchez
+ */
+final class CompilerOptions {
+  private static final Map<String, Map<String, String>> OPTIONS = new ConcurrentHashMap<>();
+
+  private CompilerOptions(){
+    throw new Error(
+      "Cannot be instantiated"
+    );
+  }
+
+  /**
+   * @param complianceLevel a compliance level; e.g., {@link JavaCore#VERSION_1_8}.
+   * @return the compiler options for that compliance level.
+   */
+  static Map<String, String> of(String complianceLevel){
+    return OPTIONS.computeIfAbsent(complianceLevel, CompilerOptions::compute);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> compute(String complianceLevel){
+    final Map<String, String> options = JavaCore.getOptions();
+    JavaCore.setComplianceOptions(complianceLevel, options);
+    return Immutable.mapOf(options);
+  }
+}
@@ -1,7 +1,6 @@
 package com.vesperin.base;
 
 import java.util.List;
-import java.util.Map;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.ASTParser;
 
@@ -51,15 +50,20 @@ public interface Configuration {
   }
 
   /**
-   * Compiler options settings.
+   * @return the compliance level of the parsers; e.g., {@link JavaCore#VERSION_1_8}.
+   */
+  default String getComplianceLevel(){
+    return JavaCore.VERSION_1_8;
+  }
+
+  /**
+   * Compiler options settings. The options of each compliance level are
+   * computed once and shared by all parsers.
    *
    * @param parser a JavaParser to be configured.
    */
   default void configureCompilerOptions(JavaParser parser){
-    @SuppressWarnings("rawtypes")
-    final Map options = JavaCore.getOptions();
-    JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
-    parser.getAstParser().setCompilerOptions(options);
+    parser.getAstParser().setCompilerOptions(CompilerOptions.of(getComplianceLevel()));
   }
 
   /**
@@ -68,11 +72,14 @@ public interface Configuration {
    * @param parser a JavaParser to be configured.
    */
   default void configureEnvironment(JavaParser parser){
-    configureEnvironment(null, null, null, parser);
+    configureEnvironment(Environment.NONE, parser);
   }
 
   /**
-   * Environment settings.
+   * Environment settings. The entries are copied on every call; since
+   * {@link #configure(JavaParser)} runs before each parse, configurations
+   * should rather build an {@link Environment} once and call
+   * {@link #configureEnvironment(Environment, JavaParser)}.
    *
    * @param cpEntries classpath entries
    * @param spEntries sourcepath entries
@@ -82,19 +89,21 @@ public interface Configuration {
   default void configureEnvironment(List<String> cpEntries,
           List<String> spEntries, List<String> encodings, JavaParser parser){
 
-    final String[] cp = (cpEntries == null || cpEntries.isEmpty())
-      ? null : cpEntries.toArray(new String[0]);
-
-    final String[] scEntries = (spEntries == null || spEntries.isEmpty())
-      ? null : spEntries.toArray(new String[0]);
-
-    final String[] parserEncodings = (encodings == null || encodings.isEmpty())
-      ? null : encodings.toArray(new String[0]);
+    configureEnvironment(Environment.of(cpEntries, spEntries, encodings), parser);
+  }
 
+  /**
+   * Environment settings.
+   *
+   * @param environment the classpath, sourcepath and encodings to use.
+   * @param parser a JavaParser to be configured.
+   */
+  default void configureEnvironment(Environment environment, JavaParser parser){
+    // ASTParser only reads these arrays, so they can be shared by parsers
     parser.getAstParser().setEnvironment(
-      cp,
-      scEntries,
-      parserEncodings,
+      environment.classpath,
+      environment.sourcepath,
+      environment.encodings,
       true
     );
   }
@@ -111,4 +120,41 @@ public interface Configuration {
     javaParser.getAstParser().setUnitName(null);
     javaParser.getAstParser().setSource((char[]) null);
   }
+
+  /**
+   * A parser's classpath, sourcepath and encodings, converted once into
+   * the arrays {@link ASTParser} expects.
+   */
+  final class Environment {
+    /** No classpath, sourcepath or encodings; only the running VM's classes. */
+    public static final Environment NONE = new Environment(null, null, null);
+
+    private final String[] classpath;
+    private final String[] sourcepath;
+    private final String[] encodings;
+
+    private Environment(String[] classpath, String[] sourcepath, String[] encodings){
+      this.classpath  = classpath;
+      this.sourcepath = sourcepath;
+      this.encodings  = encodings;
+    }
+
+    /**
+     * Creates a new environment.
+     *
+     * @param cpEntries classpath entries
+     * @param spEntries sourcepath entries
+     * @param encodings list of encodings
+     * @return a new environment.
+     */
+    public static Environment of(List<String> cpEntries, List<String> spEntries,
+            List<String> encodings){
+
+      return new Environment(toArray(cpEntries), toArray(spEntries), toArray(encodings));
+    }
+
+    private static String[] toArray(List<String> entries){
+      return (entries == null || entries.isEmpty()) ? null : entries.toArray(new String[0]);
+    }
+  }
 }
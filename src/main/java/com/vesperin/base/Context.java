@@ -11,13 +11,10 @@ import com.vesperin.base.locators.SelectedUnit;
 import com.vesperin.base.locators.UnitLocation;
 import com.vesperin.base.locators.UnitLocator;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Formatter;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
@@ -30,31 +27,34 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 public class Context {
   private final Source file;
 
+  private static final String UNRESOLVED = "cannot be resolved";
+
   private Location          scope;
   private CompilationUnit   compilationUnit;
-  private List<SyntaxIssue> syntaxProblems;
-  private List<Exception>   syntaxExceptions;
-
 
-  private static Set<Integer> BLACK_LIST;
-  static {
-    final Set<Integer> blackList = new HashSet<>();
-
-    blackList.add(IProblem.FieldRelated);
-    blackList.add(IProblem.MethodRelated);
-    blackList.add(IProblem.Internal);
-    blackList.add(IProblem.ConstructorRelated);
-    blackList.add(IProblem.IllegalPrimitiveOrArrayTypeForEnclosingInstance);
-    blackList.add(IProblem.MissingEnclosingInstanceForConstructorCall);
-    blackList.add(IProblem.MissingEnclosingInstance);
-    blackList.add(IProblem.IncorrectEnclosingInstanceReference);
-    blackList.add(IProblem.IllegalEnclosingInstanceSpecification);
-    blackList.add(IProblem.CannotDefineStaticInitializerInLocalType);
-    blackList.add(IProblem.OuterLocalMustBeFinal);
-    blackList.add(IProblem.CannotDefineInterfaceInLocalType);
-
-    BLACK_LIST = Collections.unmodifiableSet(blackList);
-  }
+  // reported problems; their syntax issues are only built when requested
+  private final List<IProblem>    problems;
+  private final List<SyntaxIssue> knownIssues;
+  private List<SyntaxIssue>       syntaxProblems;
+
+  private int syntaxIssueCount;
+  private int unresolvedTypeCount;
+
+
+  // problem categories reported as syntax issues, besides IProblem.Syntax
+  private static final int BLACK_LIST =
+      IProblem.FieldRelated
+    | IProblem.MethodRelated
+    | IProblem.Internal
+    | IProblem.ConstructorRelated
+    | IProblem.IllegalPrimitiveOrArrayTypeForEnclosingInstance
+    | IProblem.MissingEnclosingInstanceForConstructorCall
+    | IProblem.MissingEnclosingInstance
+    | IProblem.IncorrectEnclosingInstanceReference
+    | IProblem.IllegalEnclosingInstanceSpecification
+    | IProblem.CannotDefineStaticInitializerInLocalType
+    | IProblem.OuterLocalMustBeFinal
+    | IProblem.CannotDefineInterfaceInLocalType;
 
   /**
    * Construct a new {@link Context} object.
@@ -63,8 +63,8 @@ public class Context {
    */
   public Context(Source file){
     this.file             = file;
-    this.syntaxProblems   = new ArrayList<>();
-    this.syntaxExceptions = new ArrayList<>();
+    this.problems         = new ArrayList<>();
+    this.knownIssues      = new ArrayList<>();
   }
 
 
@@ -78,44 +78,64 @@ public class Context {
   }
 
 
-  private static List<Exception> addSyntaxErrors(CompilationUnit unit, Source code, List<SyntaxIssue> syntaxRelatedProblems) {
-    final List<Exception> cachedErrors = new ArrayList<>();
-    final IProblem[] problems = unit.getProblems();
-    if(problems.length > 0){
-      for(IProblem each : problems){
-        final boolean hasSyntaxProblem  = (each.getID() & IProblem.Syntax) != 0;
-
-        // HACK (due to OpenJDK 1.6)
-        final boolean isJava15RelatedIssue = each.
-            toString()
-            .contains("Syntax error")
-            && each.toString().contains("source level")
-            && each.toString().contains("1.5");
+  private synchronized void addSyntaxErrors(CompilationUnit unit) {
+    for(IProblem each : unit.getProblems()){
+      if(isSyntaxIssue(each)){
+        problems.add(each);
+        countSyntaxIssue(each.getMessage());
+      }
+    }
 
-        if(isJava15RelatedIssue) continue;
+    syntaxProblems = null;
+  }
 
-        if(each.isError() && (hasSyntaxProblem || inBlackList(each))){
-          final SyntaxIssue issue = buildSyntaxIssue(each, code);
-          syntaxRelatedProblems.add(issue);
-          cachedErrors.add(new Exception(issue.getMessage()));
-        }
-      }
+  private void countSyntaxIssue(String message){
+    syntaxIssueCount++;
+    if(message.contains(UNRESOLVED)){
+      unresolvedTypeCount++;
     }
+  }
+
+  /**
+   * @return true if the problem is reported as a syntax issue.
+   */
+  static boolean isSyntaxIssue(IProblem each){
+    final boolean hasSyntaxProblem  = (each.getID() & IProblem.Syntax) != 0;
 
-    return cachedErrors;
+    if(!each.isError() || !(hasSyntaxProblem || inBlackList(each))) return false;
+
+    // HACK (due to OpenJDK 1.6)
+    final String  description          = each.toString();
+    final boolean isJava15RelatedIssue = description.contains("Syntax error")
+        && description.contains("source level")
+        && description.contains("1.5");
+
+    return !isJava15RelatedIssue;
   }
 
-  private static SyntaxIssue buildSyntaxIssue(IProblem problem, Source code) {
-    final int start     = problem.getSourceStart();
-    final int end       = problem.getSourceEnd();
-    final int line      = problem.getSourceLineNumber();
-    final String msg    = problem.getMessage();
-    final Location location = Locations.createLocation(code, code.getContent(), start, end);
+  private static List<SyntaxIssue> buildSyntaxIssues(List<IProblem> problems, Source code) {
+    final int[] starts  = new int[problems.size()];
+    final int[] ends    = new int[problems.size()];
+    for(int i = 0; i < starts.length; i++){
+      starts[i] = problems.get(i).getSourceStart();
+      ends[i]   = problems.get(i).getSourceEnd();
+    }
+
+    final List<Location> locations = Locations.createLocations(code, code.getContent(), starts, ends);
 
-    assert location.getStart().getLine() + 1 /*we start from line 0*/ == line /*they start from 1*/;
+    final List<SyntaxIssue> issues = new ArrayList<>(starts.length);
+    for(int i = 0; i < starts.length; i++){
+      final IProblem problem  = problems.get(i);
+      final int line          = problem.getSourceLineNumber();
+      final String msg        = problem.getMessage();
+      final Location location = locations.get(i);
 
-    return new SyntaxIssue(msg, location);
+      assert location.getStart().getLine() + 1 /*we start from line 0*/ == line /*they start from 1*/;
 
+      issues.add(new SyntaxIssue(msg, location));
+    }
+
+    return issues;
   }
 
   public static Context createContext(Source code){
@@ -222,6 +242,13 @@ public class Context {
   }
 
 
+  /**
+   * @return true if this context has a scope.
+   */
+  boolean hasScope(){
+    return this.scope != null;
+  }
+
   /**
    * Get the content of the source file.
    *
@@ -234,11 +261,18 @@ public class Context {
 
   /**
    * Gets a list of syntax related problems found during the compilation of
-   * the {@code Source}.
+   * the {@code Source}. The list is built on first request.
    *
    * @return A list of syntax related problems or []
    */
-  public List<SyntaxIssue> getSyntaxProblems(){
+  public synchronized List<SyntaxIssue> getSyntaxProblems(){
+    if(syntaxProblems == null){
+      final List<SyntaxIssue> issues = new ArrayList<>(knownIssues);
+      issues.addAll(buildSyntaxIssues(problems, getSource()));
+
+      syntaxProblems = issues;
+    }
+
     return syntaxProblems;
   }
 
@@ -257,33 +291,25 @@ public class Context {
    * @return {@code true} if the context is malformed; meaning that {@link #getSyntaxProblems()}
    * is non empty.
    */
-  public boolean isMalformed(boolean ignoredTypeResolutionErrors){
+  public synchronized boolean isMalformed(boolean ignoredTypeResolutionErrors){
+    final int errors = ignoredTypeResolutionErrors
+      ? syntaxIssueCount - unresolvedTypeCount
+      : syntaxIssueCount;
 
-    final List<SyntaxIssue> errors = filterSyntaxIssues(
-        getSyntaxProblems(),
-        ignoredTypeResolutionErrors
-    );
-
-    return !errors.isEmpty();
+    return errors > 0;
   }
 
   public static List<SyntaxIssue> filterSyntaxIssues(List<SyntaxIssue> issues, boolean ignoredTypeResolutionErrors){
     final List<SyntaxIssue> errors = new ArrayList<>(issues);
     if(ignoredTypeResolutionErrors){
-      errors.removeIf(s -> s.getMessage().contains("cannot be resolved"));
+      errors.removeIf(s -> s.getMessage().contains(UNRESOLVED));
     }
 
     return errors;
   }
 
   private static boolean inBlackList(IProblem each){
-    for(Integer eachID : BLACK_LIST){
-      if((each.getID() & eachID) != 0){
-        return true;
-      }
-    }
-
-    return false;
+    return (each.getID() & BLACK_LIST) != 0;
   }
 
 
@@ -305,12 +331,29 @@ public class Context {
         this.getSource()
     );
 
-    this.syntaxExceptions.addAll(
-        addSyntaxErrors(
-            this.compilationUnit, this.getSource(),
-            this.syntaxProblems
-        )
+    addSyntaxErrors(this.compilationUnit);
+  }
+
+  /**
+   * Sets a CompilationUnit whose syntax issues are already known; e.g., a
+   * unit updated by an incremental reparse.
+   *
+   * @param compilationUnit The compilation unit.
+   * @param syntaxIssues The syntax issues of the unit.
+   */
+  synchronized void setCompilationUnit(CompilationUnit compilationUnit, List<SyntaxIssue> syntaxIssues) {
+    this.compilationUnit = Objects.requireNonNull(compilationUnit);
+    this.compilationUnit.setProperty(
+        CommonJdt.SOURCE_FILE_PROPERTY,
+        this.getSource()
     );
+
+    for(SyntaxIssue each : syntaxIssues){
+      knownIssues.add(each);
+      countSyntaxIssue(each.getMessage());
+    }
+
+    syntaxProblems = null;
   }
 
   /**
@@ -324,7 +367,12 @@ public class Context {
 
   public static Context throwSyntaxErrorIfMalformed(Context context, boolean ignoredTypeResolutionErrors){
     if(context.isMalformed(ignoredTypeResolutionErrors)){
-      throw new SyntaxException("Syntax Error", context.syntaxExceptions);
+      final List<Exception> errors = new ArrayList<>();
+      for(SyntaxIssue each : context.getSyntaxProblems()){
+        errors.add(new SyntaxError(each.getMessage()));
+      }
+
+      throw new SyntaxException("Syntax Error", errors);
     }
 
     return context;
@@ -379,6 +427,19 @@ public class Context {
   }
 
 
+  /**
+   * A syntax error reported by a {@link SyntaxException}. It only carries
+   * a message, so it skips capturing a stack trace.
+   */
+  static class SyntaxError extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    SyntaxError(String message){
+      super(message, null, false, false);
+    }
+  }
+
+
   static class ExceptionComparator implements Comparator<Exception> {
     @Override public int compare(Exception a, Exception b) {
       return a.getMessage().compareTo(b.getMessage());
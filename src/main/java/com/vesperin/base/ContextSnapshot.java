@@ -0,0 +1,377 @@
+package com.vesperin.base;
+
+import com.vesperin.base.locations.Location;
+import com.vesperin.base.locations.Locations;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+
+/**
+ * A compact, read-only copy of a parsed {@link Context}. Every AST node is
+ * kept as a few ints in one flat array (node type, start, length, parent,
+ * identifier and binding key), so a snapshot holds no JDT objects. Nodes
+ * are numbered in pre-order; node 0 is the compilation unit.
+ *
+ * <p>The full AST is only rebuilt when {@link #thaw(JavaParser)} is called.
+ *
+ * @author Huascar Sanchez
+ */
+public final class ContextSnapshot {
+  private static final int NONE     = -1;
+
+  // the ints kept per node
+  private static final int KIND     = 0;
+  private static final int START    = 1;
+  private static final int LENGTH   = 2;
+  private static final int PARENT   = 3;
+  private static final int NAME     = 4;
+  private static final int KEY      = 5;
+  private static final int STRIDE   = 6;
+
+  private final Source    source;
+  private final int[]     nodes;
+  private final int       size;
+  private final String[]  identifiers;
+  private final String[]  bindingKeys;
+  private final Location  scope;
+  private final boolean   malformed;
+
+  private ContextSnapshot(Source source, Builder builder, Location scope, boolean malformed){
+    this.source       = source;
+    this.nodes        = Arrays.copyOf(builder.nodes, builder.size * STRIDE);
+    this.size         = builder.size;
+    this.identifiers  = builder.identifiers.toArray(new String[builder.identifiers.size()]);
+    this.bindingKeys  = builder.bindingKeys.toArray(new String[builder.bindingKeys.size()]);
+    this.scope        = scope;
+    this.malformed    = malformed;
+  }
+
+  /**
+   * Freezes a parsed context. Binding keys are only recorded if the context
+   * was parsed with bindings.
+   *
+   * @param context the parsed context.
+   * @return a new snapshot of the context.
+   * @throws IllegalArgumentException if the context has no compilation unit.
+   */
+  public static ContextSnapshot freeze(Context context){
+    final CompilationUnit unit = Objects.requireNonNull(context).getCompilationUnit();
+    if(unit == null){
+      throw new IllegalArgumentException("Context has no compilation unit");
+    }
+
+    final Builder builder = new Builder(unit.getAST().hasResolvedBindings());
+    unit.accept(builder);
+
+    return new ContextSnapshot(
+      context.getSource(),
+      builder,
+      context.hasScope() ? context.getScope() : null,
+      context.isMalformed(false)
+    );
+  }
+
+  /**
+   * Rebuilds a full context by parsing the snapshot's source again.
+   *
+   * @param parser the parser to use.
+   * @return a new parsed context.
+   */
+  public Context thaw(JavaParser parser){
+    final Context context = parser.parseJava(source);
+    if(scope != null){
+      context.setScope(scope);
+    }
+
+    return context;
+  }
+
+  /**
+   * @return the source of the frozen context.
+   */
+  public Source getSource(){
+    return source;
+  }
+
+  /**
+   * @return true if the frozen context had syntax issues.
+   */
+  public boolean isMalformed(){
+    return malformed;
+  }
+
+  /**
+   * @return the number of nodes in this snapshot.
+   */
+  public int size(){
+    return size;
+  }
+
+  /**
+   * @param node a node index.
+   * @return the node type of the node; e.g., {@link ASTNode#METHOD_DECLARATION}.
+   */
+  public int getNodeType(int node){
+    return at(node, KIND);
+  }
+
+  /**
+   * @param node a node index.
+   * @return the start offset of the node.
+   */
+  public int getStartPosition(int node){
+    return at(node, START);
+  }
+
+  /**
+   * @param node a node index.
+   * @return the length of the node.
+   */
+  public int getLength(int node){
+    return at(node, LENGTH);
+  }
+
+  /**
+   * @param node a node index.
+   * @return the index of the node's parent; -1 for the compilation unit.
+   */
+  public int getParent(int node){
+    return at(node, PARENT);
+  }
+
+  /**
+   * @param node a node index.
+   * @return the identifier of a simple name, or the name of a declaration.
+   */
+  public Optional<String> getIdentifier(int node){
+    final int name = at(node, NAME);
+    return name == NONE ? Optional.empty() : Optional.of(identifiers[name]);
+  }
+
+  /**
+   * @param node a node index.
+   * @return the key of the binding a name or declaration resolved to.
+   */
+  public Optional<String> getBindingKey(int node){
+    final int key = at(node, KEY);
+    return key == NONE ? Optional.empty() : Optional.of(bindingKeys[key]);
+  }
+
+  /**
+   * Finds the closest node of a given type, starting at (and including) a
+   * node; e.g., the method enclosing a name.
+   *
+   * @param nodeType the node type to look for.
+   * @param node a node index.
+   * @return the index of the found node; -1 if there is none.
+   */
+  public int parent(int nodeType, int node){
+    int each = node;
+    while(each != NONE && getNodeType(each) != nodeType){
+      each = getParent(each);
+    }
+
+    return each;
+  }
+
+  /**
+   * Finds the innermost node covering a range of the source.
+   *
+   * @param start start offset
+   * @param end end offset
+   * @return the index of the found node; -1 if no node covers the range.
+   */
+  public int locate(int start, int end){
+    int found = NONE;
+
+    // pre-order: a node's descendants follow it, before its next sibling
+    for(int node = 0; node < size; node++){
+      final int from  = getStartPosition(node);
+      final int to    = from + getLength(node);
+
+      if(from <= start && end <= to){
+        found = node;
+      } else if(found != NONE && from >= end){
+        break;
+      }
+    }
+
+    return found;
+  }
+
+  /**
+   * @param node a node index.
+   * @return the location of the node in the source.
+   */
+  public Location locationOf(int node){
+    final int start = getStartPosition(node);
+    return Locations.createLocation(source, source.getContent(), start, start + getLength(node));
+  }
+
+  /**
+   * @param nodeType the node type to look for.
+   * @return the indices of all nodes of a given type, in source order.
+   */
+  public int[] nodesOfType(int nodeType){
+    final int[] found = new int[size];
+
+    int count = 0;
+    for(int node = 0; node < size; node++){
+      if(getNodeType(node) == nodeType){
+        found[count++] = node;
+      }
+    }
+
+    return Arrays.copyOf(found, count);
+  }
+
+  /**
+   * @return the locations of the methods in the frozen context.
+   */
+  public List<Location> locateMethods(){
+    return locateAll(ASTNode.METHOD_DECLARATION);
+  }
+
+  /**
+   * @return the locations of the fields in the frozen context.
+   */
+  public List<Location> locateFields(){
+    return locateAll(ASTNode.FIELD_DECLARATION);
+  }
+
+  /**
+   * @return the locations of the classes in the frozen context (main, inner, static nested).
+   */
+  public List<Location> locateClasses(){
+    return locateAll(ASTNode.TYPE_DECLARATION);
+  }
+
+  private List<Location> locateAll(int nodeType){
+    final int[] found = nodesOfType(nodeType);
+    final int[] starts  = new int[found.length];
+    final int[] ends    = new int[found.length];
+
+    for(int i = 0; i < found.length; i++){
+      starts[i] = getStartPosition(found[i]);
+      ends[i]   = starts[i] + getLength(found[i]);
+    }
+
+    return Locations.createLocations(source, source.getContent(), starts, ends);
+  }
+
+  private int at(int node, int field){
+    if(node < 0 || node >= size){
+      throw new IndexOutOfBoundsException("Node " + node + " of " + size);
+    }
+
+    return nodes[node * STRIDE + field];
+  }
+
+  @Override public String toString() {
+    return "ContextSnapshot(" + source.getName() + ", nodes=" + size + ")";
+  }
+
+  /**
+   * Flattens an AST in pre-order.
+   */
+  private static class Builder extends ASTVisitor {
+    final boolean               withBindings;
+    final List<String>          identifiers;
+    final List<String>          bindingKeys;
+    final Map<String, Integer>  identifierIndex;
+    final Map<String, Integer>  bindingKeyIndex;
+
+    int[] nodes;
+    int   size;
+    int   current;
+
+    Builder(boolean withBindings){
+      this.withBindings     = withBindings;
+      this.identifiers      = new ArrayList<>();
+      this.bindingKeys      = new ArrayList<>();
+      this.identifierIndex  = new HashMap<>();
+      this.bindingKeyIndex  = new HashMap<>();
+      this.nodes            = new int[256 * STRIDE];
+      this.size             = 0;
+      this.current          = NONE;
+    }
+
+    @Override public boolean preVisit2(ASTNode node) {
+      if((size + 1) * STRIDE > nodes.length){
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+      }
+
+      final int offset  = size * STRIDE;
+      nodes[offset + KIND]    = node.getNodeType();
+      nodes[offset + START]   = node.getStartPosition();
+      nodes[offset + LENGTH]  = node.getLength();
+      nodes[offset + PARENT]  = current;
+      nodes[offset + NAME]    = intern(identifiers, identifierIndex, nameOf(node));
+      nodes[offset + KEY]     = withBindings
+        ? intern(bindingKeys, bindingKeyIndex, bindingKeyOf(node))
+        : NONE;
+
+      current = size++;
+      return true;
+    }
+
+    @Override public void postVisit(ASTNode node) {
+      current = nodes[current * STRIDE + PARENT];
+    }
+
+    private static int intern(List<String> values, Map<String, Integer> index, String value){
+      if(value == null) return NONE;
+
+      final Integer known = index.get(value);
+      if(known != null) return known;
+
+      values.add(value);
+      index.put(value, values.size() - 1);
+      return values.size() - 1;
+    }
+
+    private static String nameOf(ASTNode node){
+      final SimpleName name = simpleName(node);
+      return name == null ? null : name.getIdentifier();
+    }
+
+    private static String bindingKeyOf(ASTNode node){
+      final IBinding binding;
+      if(node instanceof SimpleName){
+        binding = ((SimpleName) node).resolveBinding();
+      } else if(node instanceof AbstractTypeDeclaration){
+        binding = ((AbstractTypeDeclaration) node).resolveBinding();
+      } else if(node instanceof MethodDeclaration){
+        binding = ((MethodDeclaration) node).resolveBinding();
+      } else if(node instanceof VariableDeclaration){
+        binding = ((VariableDeclaration) node).resolveBinding();
+      } else {
+        binding = null;
+      }
+
+      return binding == null ? null : binding.getKey();
+    }
+
+    private static SimpleName simpleName(ASTNode node){
+      if(node instanceof SimpleName)              return (SimpleName) node;
+      if(node instanceof AbstractTypeDeclaration) return ((AbstractTypeDeclaration) node).getName();
+      if(node instanceof MethodDeclaration)       return ((MethodDeclaration) node).getName();
+      if(node instanceof VariableDeclaration)     return ((VariableDeclaration) node).getName();
+      if(node instanceof EnumConstantDeclaration) return ((EnumConstantDeclaration) node).getName();
+      return null;
+    }
+  }
+}
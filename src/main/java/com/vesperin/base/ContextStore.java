@@ -0,0 +1,371 @@
+package com.vesperin.base;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Keeps parsed {@link Context}s by source name, in three tiers:
+ * recently used contexts are held strongly, older ones softly (so the
+ * collector may drop them under memory pressure), and cold entries only
+ * keep their {@link Source}. A context that is no longer in memory is
+ * parsed again, with the store's parser, when it is requested.
+ *
+ * <p>Storing a source under a known name with new content replaces the
+ * entry and bumps its version. A store is thread-safe. Sources are parsed
+ * outside of the store's lock, with {@link JavaParser#parseJava(Source)},
+ * so requests for other contexts do not wait for a parse; concurrent
+ * requests for the same context share a single parse.
+ *
+ * @author Huascar Sanchez
+ */
+public class ContextStore {
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private final JavaParser              parser;
+  private final int                     capacity;
+  private final Map<String, Entry>      entries;
+  private final Map<String, Entry>      recent;
+  private final ReferenceQueue<Context> cleared;
+
+  private long parseCount;
+  private long reparseCount;
+  private long softClearedCount;
+
+  /**
+   * Construct a new ContextStore using a default parser.
+   */
+  public ContextStore(){
+    this(new EclipseJavaParser(), DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Construct a new ContextStore.
+   *
+   * @param parser the parser used to (re)parse sources.
+   * @param capacity the number of recently used contexts held strongly.
+   */
+  public ContextStore(JavaParser parser, int capacity){
+    if(capacity < 1) throw new IllegalArgumentException("capacity < 1");
+
+    this.parser   = Objects.requireNonNull(parser);
+    this.capacity = capacity;
+    this.entries  = new HashMap<>();
+    this.recent   = new LinkedHashMap<>(16, 0.75f, true);
+    this.cleared  = new ReferenceQueue<>();
+  }
+
+  /**
+   * Stores a source, without parsing it. If a source with the same name
+   * but different content is stored, it is replaced.
+   *
+   * @param source the source to store.
+   * @return the version of the stored source; starts at 1.
+   */
+  public synchronized int put(Source source){
+    expunge();
+
+    final Entry known = entries.get(source.getName());
+    if(known != null && known.source.equals(source)){
+      return known.version;
+    }
+
+    final Entry entry = new Entry(source, known == null ? 1 : known.version + 1);
+    if(known != null){
+      forget(known);
+    }
+
+    entries.put(source.getName(), entry);
+    return entry.version;
+  }
+
+  /**
+   * Stores a source and gets its parsed context.
+   *
+   * @param source the source to store.
+   * @return the parsed context of the source.
+   */
+  public Context get(Source source){
+    final Entry entry;
+    synchronized (this){
+      put(source);
+      entry = entries.get(source.getName());
+    }
+
+    return contextOf(entry);
+  }
+
+  /**
+   * Gets the parsed context of a stored source, parsing it again if it is
+   * no longer in memory.
+   *
+   * @param name the name of the source.
+   * @return the parsed context; empty if no source has this name.
+   */
+  public Optional<Context> get(String name){
+    final Entry entry;
+    synchronized (this){
+      expunge();
+      entry = entries.get(name);
+    }
+
+    return entry == null ? Optional.empty() : Optional.of(contextOf(entry));
+  }
+
+  /**
+   * @param name the name of the source.
+   * @return the version of a stored source; 0 if no source has this name.
+   */
+  public synchronized int getVersion(String name){
+    final Entry entry = entries.get(name);
+    return entry == null ? 0 : entry.version;
+  }
+
+  /**
+   * Removes a source and its context.
+   *
+   * @param name the name of the source.
+   * @return true if a source was removed.
+   */
+  public synchronized boolean remove(String name){
+    final Entry entry = entries.remove(name);
+    if(entry == null) return false;
+
+    forget(entry);
+    return true;
+  }
+
+  /**
+   * Drops the contexts that are only softly held, as the collector would
+   * under memory pressure; they are parsed again when requested.
+   */
+  public synchronized void trim(){
+    expunge();
+
+    for(Entry each : entries.values()){
+      if(each.softContext != null){
+        each.softContext.clear();
+        each.softContext = null;
+      }
+    }
+  }
+
+  /**
+   * @return the number of stored sources.
+   */
+  public synchronized int size(){
+    return entries.size();
+  }
+
+  /**
+   * @return the number of contexts currently in memory, strongly or softly held.
+   */
+  public synchronized int getResidentCount(){
+    expunge();
+
+    int resident = 0;
+    for(Entry each : entries.values()){
+      if(each.context != null || (each.softContext != null && each.softContext.get() != null)){
+        resident++;
+      }
+    }
+
+    return resident;
+  }
+
+  /**
+   * @return the number of softly held contexts dropped by the collector.
+   */
+  public synchronized long getSoftClearedCount(){
+    expunge();
+    return softClearedCount;
+  }
+
+  /**
+   * @return the number of first-time parses.
+   */
+  public synchronized long getParseCount(){
+    return parseCount;
+  }
+
+  /**
+   * @return the number of parses of sources whose context had been dropped.
+   */
+  public synchronized long getReparseCount(){
+    return reparseCount;
+  }
+
+  private Context contextOf(Entry entry){
+    final CompletableFuture<Context> parse;
+    final boolean                    parsing;
+    synchronized (this){
+      final Context resident = residentContext(entry);
+      if(resident != null){
+        use(entry, resident);
+        return resident;
+      }
+
+      // the first request parses; later ones wait for its result
+      parsing = entry.parse == null;
+      if(parsing){
+        entry.parse = new CompletableFuture<>();
+      }
+
+      parse = entry.parse;
+    }
+
+    if(parsing){
+      return parse(entry, parse);
+    }
+
+    try {
+      return parse.join();
+    } catch (CompletionException e){
+      final Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if(cause instanceof Error) throw (Error) cause;
+
+      throw new RuntimeException(cause);
+    }
+  }
+
+  // must be called without holding this store's lock
+  private Context parse(Entry entry, CompletableFuture<Context> parse){
+    final Context context;
+    try {
+      context = parser.parseJava(entry.source);
+    } catch (RuntimeException | Error e){
+      synchronized (this){
+        entry.parse = null;
+      }
+
+      parse.completeExceptionally(e);
+      throw e;
+    }
+
+    synchronized (this){
+      entry.parse = null;
+
+      if(entry.parsed){
+        reparseCount++;
+      } else {
+        parseCount++;
+        entry.parsed = true;
+      }
+
+      // a replaced or removed entry is not kept
+      if(entries.get(entry.source.getName()) == entry){
+        use(entry, context);
+      }
+    }
+
+    parse.complete(context);
+    return context;
+  }
+
+  private Context residentContext(Entry entry){
+    Context context = entry.context;
+
+    if(context == null && entry.softContext != null){
+      context = entry.softContext.get();
+      if(context == null){
+        // cleared, but not enqueued yet
+        softClearedCount++;
+      }
+
+      entry.softContext.clear();
+      entry.softContext = null;
+    }
+
+    return context;
+  }
+
+  private void use(Entry entry, Context context){
+    entry.context = context;
+    recent.put(entry.source.getName(), entry);
+
+    while(recent.size() > capacity){
+      demoteEldest();
+    }
+  }
+
+  private void demoteEldest(){
+    final Iterator<Entry> eldest = recent.values().iterator();
+    final Entry entry = eldest.next();
+    eldest.remove();
+
+    entry.softContext = new SoftContext(entry, cleared);
+    entry.context     = null;
+  }
+
+  private void forget(Entry entry){
+    recent.remove(entry.source.getName());
+
+    if(entry.softContext != null){
+      entry.softContext.clear();
+    }
+
+    entry.context     = null;
+    entry.softContext = null;
+  }
+
+  /**
+   * Drops the entries whose soft contexts were cleared. Cleared contexts
+   * mean the heap is under pressure, so half of the strongly held contexts
+   * are demoted as well.
+   */
+  private void expunge(){
+    boolean pressure = false;
+
+    for(Reference<? extends Context> each = cleared.poll(); each != null; each = cleared.poll()){
+      final SoftContext softContext = (SoftContext) each;
+      if(softContext.entry.softContext == softContext){
+        softContext.entry.softContext = null;
+        softClearedCount++;
+        pressure = true;
+      }
+    }
+
+    if(pressure){
+      for(int demoted = recent.size() / 2; demoted > 0; demoted--){
+        demoteEldest();
+      }
+    }
+  }
+
+  @Override public String toString() {
+    return "ContextStore(sources=" + size() + ", resident=" + getResidentCount() + ")";
+  }
+
+  private static class Entry {
+    final Source  source;
+    final int     version;
+
+    Context                     context;
+    SoftContext                 softContext;
+    CompletableFuture<Context>  parse;
+    boolean                     parsed;
+
+    Entry(Source source, int version){
+      this.source   = source;
+      this.version  = version;
+    }
+  }
+
+  private static class SoftContext extends SoftReference<Context> {
+    final Entry entry;
+
+    SoftContext(Entry entry, ReferenceQueue<Context> queue){
+      super(entry.context, queue);
+      this.entry = entry;
+    }
+  }
+}
@@ -6,6 +6,9 @@ import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
 
 /**
+ * A {@link JavaParser} backed by a JDT {@link ASTParser}. See
+ * {@link JavaParser} for which of its methods are thread-safe.
+ *
  * @author Huascar Sanchez
  */
 public class EclipseJavaParser implements JavaParser {
@@ -18,7 +21,7 @@ public class EclipseJavaParser implements JavaParser {
    * Construct a new Eclipse Java parser with a default configuration.
    */
   public EclipseJavaParser(){
-    this(new DefaultConfiguration());
+    this(DefaultConfiguration.INSTANCE);
   }
 
   /**
@@ -44,6 +47,8 @@ public class EclipseJavaParser implements JavaParser {
 
   @Override public ParsedUnit parseJava(Context context, int mode) {
 
+    // ASTParser#createAST resets the parser's settings
+    this.configuration.configure(this);
     this.astParser.setKind(mode);
     this.astParser.setStatementsRecovery(true);
     this.astParser.setBindingsRecovery(true);
@@ -71,6 +76,8 @@ public class EclipseJavaParser implements JavaParser {
   }
 
   private static class DefaultConfiguration implements Configuration {
+    static final Configuration INSTANCE = new DefaultConfiguration();
+
     @Override public void configure(JavaParser parser) {
       defaultSettings(parser);
     }
@@ -0,0 +1,238 @@
+package com.vesperin.base;
+
+import com.vesperin.base.locations.Location;
+import com.vesperin.base.locations.Locations;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
+import org.eclipse.jdt.core.dom.Comment;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+/**
+ * Updates a parsed context after a small edit by reparsing only the
+ * method, field or initializer enclosing the edit. The reparsed
+ * declaration is spliced into the existing {@link CompilationUnit}, and
+ * the nodes and syntax issues after it are shifted in place.
+ *
+ * @author Huascar Sanchez
+ */
+final class IncrementalParser {
+  private IncrementalParser(){
+    throw new Error("Cannot be instantiated");
+  }
+
+  /**
+   * Applies an edit to a context's source and updates its compilation
+   * unit. Falls back to a full parse when the edit is not enclosed by a
+   * single body declaration, or when the reparsed text is not one.
+   *
+   * The spliced declaration has no bindings, and the unit's comment list,
+   * line table and problems are not updated; the returned context's
+   * syntax issues are. The given context shares its compilation unit with
+   * the returned one, so it should not be used afterwards.
+   *
+   * @param parser the parser to use.
+   * @param context the parsed context to update.
+   * @param edit the edit to apply.
+   * @return the updated context.
+   */
+  static Context reparse(JavaParser parser, Context context, SourceEdit edit){
+    final Source  source     = context.getSource();
+    final String  newContent = edit.applyTo(source.getContent());
+    final Source  newSource  = Source.from(source, newContent);
+
+    final CompilationUnit unit        = context.getCompilationUnit();
+    final BodyDeclaration declaration = unit == null ? null : enclosingDeclaration(unit, edit);
+
+    if(declaration == null){
+      return parser.parseJava(newSource);
+    }
+
+    final int start   = declaration.getStartPosition();
+    final int end     = start + declaration.getLength();
+    final int delta   = edit.getDelta();
+
+    final BodyDeclaration replacement = parseDeclaration(
+      parser, newSource, start, declaration.getLength() + delta
+    );
+
+    if(replacement == null || replacement.getNodeType() != declaration.getNodeType()){
+      return parser.parseJava(newSource);
+    }
+
+    final List<SyntaxIssue> previous = context.getSyntaxProblems();
+    final IProblem[]        problems = ((CompilationUnit) replacement.getRoot()).getProblems();
+
+    // issues before the edit keep their positions; the others, and the
+    // scope, are located in a single pass over the new content
+    final List<SyntaxIssue> issues    = new ArrayList<>();
+    final List<String>      messages  = new ArrayList<>();
+    final int[]             starts    = new int[previous.size() + problems.length + 1];
+    final int[]             ends      = new int[starts.length];
+
+    for(SyntaxIssue each : previous){
+      final Location location = each.getErrorLocation();
+      final int from  = location.getStart().getOffset();
+      final int to    = location.getEnd().getOffset();
+
+      if(to < start){
+        issues.add(new SyntaxIssue(each.getMessage(),
+          Locations.createLocation(newSource, location.getStart(), location.getEnd())));
+      } else if(from >= end){
+        starts[messages.size()] = from + delta;
+        ends[messages.size()]   = to + delta;
+        messages.add(each.getMessage());
+      }
+    }
+
+    for(IProblem each : problems){
+      if(Context.isSyntaxIssue(each)){
+        starts[messages.size()] = each.getSourceStart();
+        ends[messages.size()]   = each.getSourceEnd();
+        messages.add(each.getMessage());
+      }
+    }
+
+    int count = messages.size();
+    if(context.hasScope()){
+      final Location scope  = context.getScope();
+      final int from        = scope.getStart().getOffset();
+      final int to          = scope.getEnd().getOffset();
+
+      starts[count] = from >= end ? from + delta : from;
+      ends[count]   = to >= end ? to + delta : to;
+      count++;
+    }
+
+    final List<Location> locations = Locations.createLocations(
+      newSource, newContent, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)
+    );
+
+    for(int i = 0; i < messages.size(); i++){
+      issues.add(new SyntaxIssue(messages.get(i), locations.get(i)));
+    }
+
+    shiftSourceRanges(unit, declaration, start, end, delta);
+
+    @SuppressWarnings("unchecked")
+    final List<ASTNode> siblings = (List<ASTNode>) declaration.getParent()
+      .getStructuralProperty(declaration.getLocationInParent());
+
+    siblings.set(
+      siblings.indexOf(declaration),
+      ASTNode.copySubtree(unit.getAST(), replacement)
+    );
+
+    final Context updated = Context.createContext(newSource);
+    updated.setCompilationUnit(unit, issues);
+
+    if(context.hasScope()){
+      updated.setScope(locations.get(messages.size()));
+    }
+
+    return updated;
+  }
+
+  /**
+   * Finds the innermost method, field or initializer enclosing the edit.
+   */
+  private static BodyDeclaration enclosingDeclaration(CompilationUnit unit, SourceEdit edit){
+    final BodyDeclaration[] found = new BodyDeclaration[1];
+
+    unit.accept(new ASTVisitor() {
+      @Override public boolean preVisit2(ASTNode node) {
+        final int start = node.getStartPosition();
+        final int end   = start + node.getLength();
+
+        if(start > edit.getOffset() || end < edit.getEnd()) return false;
+
+        if(node instanceof MethodDeclaration
+          || node instanceof FieldDeclaration
+          || node instanceof Initializer){
+
+          final StructuralPropertyDescriptor location = node.getLocationInParent();
+          if(location instanceof ChildListPropertyDescriptor){
+            found[0] = (BodyDeclaration) node;
+          }
+        }
+
+        return true;
+      }
+    });
+
+    return found[0];
+  }
+
+  /**
+   * Parses a range of the new source as a single class body declaration.
+   * Nodes keep their offsets within the whole source.
+   */
+  private static BodyDeclaration parseDeclaration(JavaParser parser, Source source, int offset, int length){
+    final ASTParser astParser = parser.getAstParser();
+
+    parser.getConfiguration().configure(parser);
+    astParser.setKind(ASTParser.K_CLASS_BODY_DECLARATIONS);
+    astParser.setSource(source.getContent().toCharArray());
+    astParser.setSourceRange(offset, length);
+
+    final ASTNode parsed = astParser.createAST(null);
+    if(!(parsed instanceof TypeDeclaration) || !(parsed.getRoot() instanceof CompilationUnit)){
+      return null;
+    }
+
+    final List<?> declarations = ((TypeDeclaration) parsed).bodyDeclarations();
+    return declarations.size() == 1 ? (BodyDeclaration) declarations.get(0) : null;
+  }
+
+  /**
+   * Moves the nodes after the replaced declaration by delta and stretches
+   * the nodes enclosing it.
+   */
+  private static void shiftSourceRanges(CompilationUnit unit, BodyDeclaration replaced, int start, int end, int delta){
+    if(delta == 0) return;
+
+    final Set<ASTNode> shifted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    unit.accept(new ASTVisitor(true) {
+      @Override public boolean preVisit2(ASTNode node) {
+        if(node == replaced) return false;
+
+        shifted.add(node);
+        shift(node, start, end, delta);
+        return true;
+      }
+    });
+
+    for(Object each : unit.getCommentList()){
+      final Comment comment = (Comment) each;
+      if(!shifted.contains(comment) && comment.getStartPosition() >= end){
+        shift(comment, start, end, delta);
+      }
+    }
+  }
+
+  private static void shift(ASTNode node, int start, int end, int delta){
+    final int from    = node.getStartPosition();
+    final int length  = node.getLength();
+
+    if(from >= end){
+      node.setSourceRange(from + delta, length);
+    } else if(from <= start && from + length >= end){
+      node.setSourceRange(from, length + delta);
+    }
+  }
+}
@@ -8,6 +8,14 @@ import java.util.List;
 import java.util.Objects;
 
 /**
+ * A parser of Java source code.
+ *
+ * <p>{@link #parseJava(Source)} and {@link #parseJava(Context)} parse with
+ * parsers of their calling thread, so a parser may be shared by threads
+ * that only use these methods. {@link #parseJava(Context, int)},
+ * {@link #reparseJava(Context, SourceEdit)} and {@link #getAstParser()}
+ * drive this parser's own {@link ASTParser}, and are not thread-safe.
+ *
  * @author Huascar Sanchez
  */
 public interface JavaParser {
@@ -34,6 +42,26 @@ public interface JavaParser {
   }
 
 
+  /**
+   * Updates a parsed context after an edit of its source. Only the method,
+   * field or initializer enclosing the edit is reparsed and spliced into
+   * the existing compilation unit; other edits trigger a full parse. The
+   * reparsed declaration has no bindings, and the given context should
+   * not be used afterwards.
+   *
+   * @param context the parsed context.
+   * @param edit the edit applied to the context's source.
+   * @return the updated context.
+   */
+  default Context reparseJava(Context context, SourceEdit edit){
+    return IncrementalParser.reparse(
+      this,
+      Objects.requireNonNull(context),
+      Objects.requireNonNull(edit)
+    );
+  }
+
+
   /**
    * Parses the context for a given source file. Note that the parsing mode is set
    * to ASTParser.K_COMPILATION_UNIT.
@@ -0,0 +1,369 @@
+package com.vesperin.base;
+
+import com.vesperin.tasks.Task;
+import com.vesperin.tasks.TaskQueue;
+import com.vesperin.tasks.TaskResult;
+import com.vesperin.tasks.ValueTask;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes every Java file under a directory. Each file becomes a parse
+ * task followed by one task per registered analysis, all run in parallel
+ * by a {@link TaskQueue}. Results are handed to a sink through a bounded
+ * buffer: when the sink falls behind, the analyses wait for it, while the
+ * task pool makes up for the waiting workers.
+ *
+ * @author Huascar Sanchez
+ */
+public class ProjectAnalyzer {
+  private static final int    DEFAULT_SINK_CAPACITY = 1024;
+  private static final String PARSE = "parse";
+
+  private final Configuration                       configuration;
+  private final Map<String, Function<Context, ?>>   analyses;
+  private final int                                 sinkCapacity;
+  private final PrintWriter                         stdout;
+  private final PrintWriter                         stderr;
+
+  // JavaParsers are not thread-safe
+  private final ThreadLocal<JavaParser>             parsers;
+
+  /**
+   * Construct a new ProjectAnalyzer object using default values.
+   */
+  public ProjectAnalyzer(){
+    this(new EclipseJavaParser().getConfiguration());
+  }
+
+  /**
+   * Construct a new ProjectAnalyzer object using a given parser configuration.
+   *
+   * @param configuration the configuration of the parsers.
+   */
+  public ProjectAnalyzer(Configuration configuration){
+    this(
+      configuration,
+      DEFAULT_SINK_CAPACITY,
+      new PrintWriter(System.out, true),
+      new PrintWriter(System.err, true)
+    );
+  }
+
+  /**
+   * Construct a new ProjectAnalyzer object.
+   *
+   * @param configuration the configuration of the parsers.
+   * @param sinkCapacity the number of results buffered before analyses wait for the sink.
+   * @param stdout the log object.
+   * @param stderr the error log object.
+   */
+  public ProjectAnalyzer(Configuration configuration, int sinkCapacity, PrintWriter stdout, PrintWriter stderr){
+    if(sinkCapacity < 1) throw new IllegalArgumentException("sinkCapacity < 1");
+
+    this.configuration  = Objects.requireNonNull(configuration);
+    this.analyses       = new LinkedHashMap<>();
+    this.sinkCapacity   = sinkCapacity;
+    this.stdout         = stdout;
+    this.stderr         = stderr;
+    this.parsers        = ThreadLocal.withInitial(() -> new EclipseJavaParser(this.configuration));
+  }
+
+  /**
+   * Registers an analysis to run on every parsed file.
+   *
+   * @param name the name of the analysis.
+   * @param analysis the analysis; e.g., {@code Context::locateMethods}.
+   * @return self
+   */
+  public ProjectAnalyzer register(String name, Function<Context, ?> analysis){
+    if(PARSE.equals(name) || analyses.containsKey(name)){
+      throw new IllegalArgumentException("Analysis already registered: " + name);
+    }
+
+    analyses.put(name, Objects.requireNonNull(analysis));
+    return this;
+  }
+
+  /**
+   * Parses and analyzes every Java file under a directory. A file's
+   * context is released as soon as its analyses are done, rather than
+   * kept until the whole directory is analyzed.
+   *
+   * @param directory the root directory.
+   * @param sink the consumer of results; called from a single thread.
+   * @return a report of the analysis.
+   */
+  public Report analyze(Path directory, Consumer<Result> sink){
+    final long start = System.nanoTime();
+
+    final TaskQueue     queue   = new TaskQueue(stdout, stderr);
+    final Delivery      results = new Delivery(sinkCapacity, sink, stderr);
+    final AtomicInteger parsed  = new AtomicInteger(0);
+    final AtomicInteger failed  = new AtomicInteger(0);
+
+    int files = 0;
+    try (Stream<Path> paths = Sources.javaFiles(directory)) {
+      final Iterator<Path> iterator = paths.iterator();
+      while (iterator.hasNext()){
+        files++;
+        enqueueFile(queue, iterator.next(), results, parsed, failed);
+      }
+    }
+
+    results.start();
+    try {
+      queue.runTasks();
+    } finally {
+      results.finish();
+    }
+
+    final Report report = new Report(files, parsed.get(), failed.get(), System.nanoTime() - start);
+    stdout.println(report);
+    return report;
+  }
+
+  private void enqueueFile(TaskQueue queue, Path file, Delivery results,
+          AtomicInteger parsed, AtomicInteger failed){
+
+    final ValueTask<Context> parse = new ValueTask<Context>(file.toString()) {
+      @Override protected Context compute() throws Exception {
+        try {
+          final Context context = parsers.get().parseJava(Sources.read(file));
+          parsed.incrementAndGet();
+          return context;
+        } catch (Exception e){
+          failed.incrementAndGet();
+          results.put(new Result(file, PARSE, null, e));
+          throw e;
+        }
+      }
+    };
+
+    final List<Task> analysisTasks = new ArrayList<>();
+    for (Map.Entry<String, Function<Context, ?>> each : analyses.entrySet()){
+      final String              name      = each.getKey();
+      final Function<Context, ?> analysis = each.getValue();
+
+      analysisTasks.add(new Task(name + " " + file) {
+        @Override protected TaskResult execute() throws Exception {
+          try {
+            results.put(new Result(file, name, analysis.apply(input(parse)), null));
+            return TaskResult.SUCCESS;
+          } catch (Exception e){
+            failed.incrementAndGet();
+            results.put(new Result(file, name, null, e));
+            return TaskResult.ERROR;
+          }
+        }
+      }.afterSuccess(parse));
+    }
+
+    final Task release = new Task("release " + file) {
+      @Override protected TaskResult execute() throws Exception {
+        parse.release();
+        return TaskResult.SUCCESS;
+      }
+    };
+
+    release.afterSuccess(parse).after(analysisTasks);
+
+    queue.enqueue(parse);
+    queue.enqueueAll(analysisTasks);
+    queue.enqueue(release);
+  }
+
+  /**
+   * The outcome of one analysis (or of parsing) of one file.
+   */
+  public static class Result {
+    private final Path      file;
+    private final String    analysis;
+    private final Object    value;
+    private final Exception error;
+
+    Result(Path file, String analysis, Object value, Exception error){
+      this.file     = file;
+      this.analysis = analysis;
+      this.value    = value;
+      this.error    = error;
+    }
+
+    /**
+     * @return the analyzed file.
+     */
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * @return the name of the analysis; "parse" for parsing errors.
+     */
+    public String getAnalysis() {
+      return analysis;
+    }
+
+    /**
+     * @return the value produced by the analysis; null if it failed.
+     */
+    public Object getValue() {
+      return value;
+    }
+
+    /**
+     * @return the error raised by the analysis, if any.
+     */
+    public Optional<Exception> getError() {
+      return Optional.ofNullable(error);
+    }
+
+    @Override public String toString() {
+      return "Result(file=" + file + ", analysis=" + analysis
+        + (error == null ? ")" : ", error=" + error.getMessage() + ")");
+    }
+  }
+
+  /**
+   * A summary of a project analysis.
+   */
+  public static class Report {
+    private final int   files;
+    private final int   parsedFiles;
+    private final int   failures;
+    private final long  elapsedNanos;
+
+    Report(int files, int parsedFiles, int failures, long elapsedNanos){
+      this.files        = files;
+      this.parsedFiles  = parsedFiles;
+      this.failures     = failures;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of Java files found.
+     */
+    public int getFiles() {
+      return files;
+    }
+
+    /**
+     * @return the number of files parsed successfully.
+     */
+    public int getParsedFiles() {
+      return parsedFiles;
+    }
+
+    /**
+     * @return the number of failed parses and analyses.
+     */
+    public int getFailures() {
+      return failures;
+    }
+
+    /**
+     * @param unit the time unit of the returned value.
+     * @return the wall-clock time of the analysis.
+     */
+    public long getElapsedTime(TimeUnit unit) {
+      return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of files analyzed per second.
+     */
+    public double getFilesPerSecond() {
+      return elapsedNanos == 0 ? 0 : files / (elapsedNanos / 1e9);
+    }
+
+    @Override public String toString() {
+      return String.format(
+        "Analyzed %d files (%d parsed, %d failures) in %.2fs: %.1f files/s",
+        files, parsedFiles, failures, elapsedNanos / 1e9, getFilesPerSecond()
+      );
+    }
+  }
+
+  /**
+   * Hands results to the sink from a single thread, through a bounded buffer.
+   */
+  private static class Delivery {
+    private static final Result END = new Result(null, null, null, null);
+
+    private final BlockingQueue<Result> buffer;
+    private final Thread                consumer;
+
+    Delivery(int capacity, Consumer<Result> sink, PrintWriter stderr){
+      this.buffer   = new ArrayBlockingQueue<>(capacity);
+      this.consumer = new Thread(() -> {
+        try {
+          for (Result each = buffer.take(); each != END; each = buffer.take()){
+            try {
+              sink.accept(each);
+            } catch (RuntimeException e){
+              stderr.println("Unexpected failure from sink: " + e.getMessage());
+            }
+          }
+        } catch (InterruptedException ignored){
+          Thread.currentThread().interrupt();
+        }
+      }, "ProjectAnalyzer-sink");
+
+      this.consumer.setDaemon(true);
+    }
+
+    void start(){
+      consumer.start();
+    }
+
+    void put(Result result){
+      // analyses run on ForkJoinPool workers; managedBlock lets the pool
+      // add a spare worker while this one waits for the sink
+      try {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+          boolean delivered;
+
+          @Override public boolean block() throws InterruptedException {
+            if (!delivered) {
+              buffer.put(result);
+              delivered = true;
+            }
+
+            return true;
+          }
+
+          @Override public boolean isReleasable() {
+            return delivered || (delivered = buffer.offer(result));
+          }
+        });
+      } catch (InterruptedException e){
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+
+    void finish(){
+      put(END);
+
+      try {
+        consumer.join();
+      } catch (InterruptedException e){
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -2,11 +2,8 @@ package com.vesperin.base;
 
 import com.vesperin.utils.Immutable;
 import com.vesperin.utils.Iterables;
-import com.vesperin.utils.Strings;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -14,7 +11,6 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * @author Huascar Sanchez
@@ -27,6 +23,9 @@ public class Source {
   private final String name;
   private final String content;
 
+  // cached hash code; 0 until computed
+  private int hash;
+
 
   /**
    * Construct a source object.
@@ -41,11 +40,19 @@ public class Source {
 
 
   @Override public boolean equals(Object o) {
+    if(this == o){
+      return true;
+    }
+
     if(!(o instanceof Source)){
       return false;
     }
 
     final Source that      = (Source)o;
+    if(this.hash != 0 && that.hash != 0 && this.hash != that.hash){
+      return false;
+    }
+
     final boolean sameName = that.getName().equals(getName());
     final boolean sameCont = that.getContent().equals(getContent());
 
@@ -105,30 +112,38 @@ public class Source {
    * @return the processed source file.
    */
   public static Source from(Source template, Map<String, String> options) {
-    if(!StringTemplate.needsProcessing(template.getContent())) return template;
     if(Objects.isNull(options) || options.isEmpty()) return template;
 
-    final String newContent = StringTemplate.process(template.getContent(), options);
-    return Source.from(template, newContent);
+    return from(template, StringTemplate.of(template), options);
   }
 
   /**
-   * Converts a file into a source object.
+   * Process a source file with holes (template), reusing its already
+   * compiled template.
+   *
+   * @param template Source file template
+   * @param compiled the template compiled from the source's content.
+   * @param options a mapping between holes in the source and the holes' actual values.
+   * @return the processed source file.
+   * @see StringTemplate#of(Source)
+   */
+  public static Source from(Source template, StringTemplate compiled, Map<String, String> options) {
+    if(Objects.isNull(options) || options.isEmpty()) return template;
+    if(!compiled.hasHoles()) return template;
+
+    return Source.from(template, compiled.render(options));
+  }
+
+  /**
+   * Converts a file into a source object. The file's line separators are
+   * kept, so offsets in the source match offsets in the file.
    *
    * @param file the file to be converted.
    * @return a new source code object.
+   * @see Sources#read(java.nio.file.Path)
    */
   public static Source from(File file) {
-    try {
-      final String name     = Strings.fileNameWithoutExtension(file);
-
-      final String content  = Files.readAllLines(file.toPath()).stream()
-        .collect(Collectors.joining("\n"));
-
-      return Source.from(name, content);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+    return Sources.read(file.toPath());
   }
 
   /**
@@ -154,7 +169,13 @@ public class Source {
   }
 
   @Override public int hashCode() {
-    return Objects.hash(getName(), getContent());
+    int result = hash;
+    if(result == 0){
+      result = Objects.hash(getName(), getContent());
+      hash   = result;
+    }
+
+    return result;
   }
 
 
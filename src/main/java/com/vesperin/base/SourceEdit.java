@@ -0,0 +1,113 @@
+package com.vesperin.base;
+
+import java.util.Objects;
+
+/**
+ * A text delta on a {@link Source}: replaces {@code length} characters
+ * starting at {@code offset} with some new text.
+ *
+ * @author Huascar Sanchez
+ */
+public final class SourceEdit {
+  private final int     offset;
+  private final int     length;
+  private final String  text;
+
+  private SourceEdit(int offset, int length, String text){
+    if(offset < 0 || length < 0){
+      throw new IllegalArgumentException("Invalid edit range");
+    }
+
+    this.offset = offset;
+    this.length = length;
+    this.text   = Objects.requireNonNull(text);
+  }
+
+  /**
+   * Creates an edit that replaces a range of text.
+   *
+   * @param offset the start of the replaced range.
+   * @param length the length of the replaced range.
+   * @param text the new text.
+   * @return a new edit.
+   */
+  public static SourceEdit replace(int offset, int length, String text){
+    return new SourceEdit(offset, length, text);
+  }
+
+  /**
+   * Creates an edit that inserts some text.
+   *
+   * @param offset where the text is inserted.
+   * @param text the new text.
+   * @return a new edit.
+   */
+  public static SourceEdit insert(int offset, String text){
+    return new SourceEdit(offset, 0, text);
+  }
+
+  /**
+   * Creates an edit that deletes a range of text.
+   *
+   * @param offset the start of the deleted range.
+   * @param length the length of the deleted range.
+   * @return a new edit.
+   */
+  public static SourceEdit delete(int offset, int length){
+    return new SourceEdit(offset, length, "");
+  }
+
+  /**
+   * Applies this edit to some content.
+   *
+   * @param content the content to edit.
+   * @return the edited content.
+   * @throws IllegalArgumentException if the edit falls outside the content.
+   */
+  public String applyTo(String content){
+    if(getEnd() > content.length()){
+      throw new IllegalArgumentException("Edit falls outside the content");
+    }
+
+    return content.substring(0, offset) + text + content.substring(getEnd());
+  }
+
+  /**
+   * @return the start of the replaced range.
+   */
+  public int getOffset(){
+    return offset;
+  }
+
+  /**
+   * @return the length of the replaced range.
+   */
+  public int getLength(){
+    return length;
+  }
+
+  /**
+   * @return the end (exclusive) of the replaced range.
+   */
+  public int getEnd(){
+    return offset + length;
+  }
+
+  /**
+   * @return the new text.
+   */
+  public String getText(){
+    return text;
+  }
+
+  /**
+   * @return how much the text after the replaced range moves.
+   */
+  public int getDelta(){
+    return text.length() - length;
+  }
+
+  @Override public String toString() {
+    return "SourceEdit(offset=" + offset + ", length=" + length + ", text=" + text + ")";
+  }
+}
@@ -1,20 +1,45 @@
 package com.vesperin.base;
 
+import com.vesperin.base.locations.Location;
+import com.vesperin.utils.Immutable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.formatter.CodeFormatter;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.text.edits.MultiTextEdit;
 import org.eclipse.text.edits.TextEdit;
 
 /**
- * Re-Formats Java code according to Google's Code Style
+ * Re-Formats Java code according to Google's Code Style. Formatting is
+ * thread-safe: the formatter options are computed once, and each thread
+ * reuses its own {@link CodeFormatter}.
  *
  * @author Huascar Sanchez
  */
 public class SourceFormat {
+  private static final String              LINE_SEPARATOR = System.getProperty("line.separator");
+  private static final Map<String, String> OPTIONS        = Immutable.mapOf(createOptions());
+
+  // code formatters are not thread-safe
+  private static final ThreadLocal<CodeFormatter> FORMATTERS = ThreadLocal.withInitial(
+    () -> ToolFactory.createCodeFormatter(OPTIONS)
+  );
+
   private SourceFormat(){
     throw new Error(
       "Cannot be instantiated"
@@ -28,9 +53,255 @@ public class SourceFormat {
    * @return formatted code as string
    */
   public static String format(String code) {
+    int type   = CodeFormatter.K_COMPILATION_UNIT;
+
+    int indent = 0;
+    final CodeFormatter codeFormatter = FORMATTERS.get();
+    final TextEdit edit               = codeFormatter.format(
+      type,
+      code,
+      0,
+      code.length(),
+      indent,
+      LINE_SEPARATOR
+    );
+
+    if (edit == null) { return code; } else {
+      final IDocument document = new Document(code);
+      try { edit.apply(document); } catch (Exception e) {
+        return code;
+      }
+
+      // trim at the end of string
+      return trimEnd(document.get());
+    }
+  }
+
+  /**
+   * Formats only the given regions of a source. Rather than the formatted
+   * code, it returns the edits to apply to the source's content, so
+   * callers can patch their own buffers. The whole source is still parsed
+   * and formatted; only the edits outside the regions are dropped. See
+   * {@link #format(Context, Location...)} for a cost that depends on the
+   * size of the edited code instead.
+   *
+   * @param source the source to format.
+   * @param locations the regions to format.
+   * @return the edits to apply; empty if the source cannot be formatted.
+   */
+  public static TextEdit format(Source source, Location... locations) {
+    final String     code    = source.getContent();
+    final IRegion[]  regions = toRegions(locations);
+
+    if (regions.length == 0) { return new MultiTextEdit(); }
+
+    final TextEdit edit = FORMATTERS.get().format(
+      CodeFormatter.K_COMPILATION_UNIT,
+      code,
+      regions,
+      0,
+      LINE_SEPARATOR
+    );
+
+    return edit == null ? new MultiTextEdit() : edit;
+  }
+
+  /**
+   * Formats the members (methods, fields, initializers and member types)
+   * of a parsed context that enclose the given regions. Each member is
+   * formatted on its own, so the cost depends on the size of those
+   * members, not the size of the source; the blank lines between members
+   * are left as they are. Falls back to {@link #format(Source, Location...)}
+   * when a region is not enclosed by a member that starts its own line.
+   *
+   * @param context the parsed context to format.
+   * @param locations the regions to format.
+   * @return the edits to apply to the context's source content.
+   */
+  public static TextEdit format(Context context, Location... locations) {
+    final String          code    = context.getSourceContent();
+    final CompilationUnit unit    = context.getCompilationUnit();
+    final IRegion[]       regions = toRegions(locations);
+
+    if (regions.length == 0) { return new MultiTextEdit(); }
+    if (unit == null) { return format(context.getSource(), locations); }
+
+    final List<BodyDeclaration> members = new ArrayList<>();
+    for (IRegion each : regions) {
+      final BodyDeclaration member = enclosingMember(unit, each);
+      if (member == null || lineStart(code, member) < 0) {
+        return format(context.getSource(), locations);
+      }
+
+      members.add(member);
+    }
+
+    final MultiTextEdit result = new MultiTextEdit();
+
+    int formattedEnd = -1;
+    for (BodyDeclaration each : outermost(members)) {
+      final int start = lineStart(code, each);
+      final int end   = each.getStartPosition() + each.getLength();
+
+      if (start < formattedEnd) { continue; }
+
+      final TextEdit edit = FORMATTERS.get().format(
+        CodeFormatter.K_CLASS_BODY_DECLARATIONS,
+        code.substring(start, end),
+        0,
+        end - start,
+        typeDepth(each),
+        LINE_SEPARATOR
+      );
+
+      if (edit == null) { return format(context.getSource(), locations); }
+
+      edit.moveTree(start);
+      result.addChild(edit);
 
-    String lineSeparator        = System.getProperty("line.separator");
-    Map<String, String> options = new HashMap<>();
+      formattedEnd = end;
+    }
+
+    return result;
+  }
+
+  /**
+   * Finds the innermost member of a top level or member type that
+   * encloses a region.
+   */
+  private static BodyDeclaration enclosingMember(CompilationUnit unit, IRegion region) {
+    final int start = region.getOffset();
+    final int end   = start + region.getLength();
+
+    final BodyDeclaration[] found = new BodyDeclaration[1];
+    unit.accept(new ASTVisitor() {
+      @Override public boolean preVisit2(ASTNode node) {
+        final int from = node.getStartPosition();
+        final int to   = from + node.getLength();
+        if (start < from || end > to) { return false; }
+
+        if (node instanceof BodyDeclaration && typeDepth(node) > 0) {
+          found[0] = (BodyDeclaration) node;
+        }
+
+        return true;
+      }
+    });
+
+    return found[0];
+  }
+
+  /**
+   * @return the number of types enclosing a member, or 0 if something
+   *    other than a type (e.g., a method of a local class) encloses it.
+   */
+  private static int typeDepth(ASTNode member) {
+    int depth = 0;
+    for (ASTNode each = member.getParent(); !(each instanceof CompilationUnit); each = each.getParent()) {
+      if (!(each instanceof AbstractTypeDeclaration)) { return 0; }
+      depth++;
+    }
+
+    return depth;
+  }
+
+  /**
+   * @return the start of the member's first line, or -1 if other code
+   *    precedes the member on that line.
+   */
+  private static int lineStart(String code, BodyDeclaration member) {
+    int start = member.getStartPosition();
+    while (start > 0 && code.charAt(start - 1) != '\n' && code.charAt(start - 1) != '\r') {
+      if (!Character.isWhitespace(code.charAt(start - 1))) { return -1; }
+      start--;
+    }
+
+    return start;
+  }
+
+  /**
+   * Sorts members by position, keeping only those not nested in another.
+   */
+  private static List<BodyDeclaration> outermost(List<BodyDeclaration> members) {
+    final List<BodyDeclaration> sorted = new ArrayList<>(members);
+    sorted.sort(Comparator.comparingInt(BodyDeclaration::getStartPosition));
+
+    final List<BodyDeclaration> result = new ArrayList<>(sorted.size());
+    int end = -1;
+    for (BodyDeclaration each : sorted) {
+      if (each.getStartPosition() + each.getLength() <= end) { continue; }
+
+      result.add(each);
+      end = each.getStartPosition() + each.getLength();
+    }
+
+    return result;
+  }
+
+  /**
+   * Converts locations into the sorted, non overlapping regions required
+   * by the code formatter.
+   */
+  private static IRegion[] toRegions(Location... locations) {
+    final Location[] sorted = locations.clone();
+    Arrays.sort(sorted, Comparator.comparingInt(l -> l.getStart().getOffset()));
+
+    final List<IRegion> regions = new ArrayList<>(sorted.length);
+
+    int start = -1;
+    int end   = -1;
+    for (Location each : sorted) {
+      final int offset = each.getStart().getOffset();
+      final int limit  = each.getEnd().getOffset();
+
+      if (start >= 0 && offset <= end) {
+        end = Math.max(end, limit);
+        continue;
+      }
+
+      if (start >= 0) { regions.add(new Region(start, end - start)); }
+
+      start = offset;
+      end   = limit;
+    }
+
+    if (start >= 0) { regions.add(new Region(start, end - start)); }
+
+    return regions.toArray(new IRegion[regions.size()]);
+  }
+
+  /**
+   * Formats a list of sources in parallel.
+   *
+   * @param sources the sources to format.
+   * @return the formatted sources, in the same order.
+   */
+  public static List<Source> formatAll(List<Source> sources) {
+    return sources.parallelStream()
+      .map(Source::reformat)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Replaces trailing whitespace with a single new line, without running a
+   * regular expression over the whole code.
+   */
+  private static String trimEnd(String code) {
+    int end = code.length();
+    while (end > 0 && isWhitespace(code.charAt(end - 1))) {
+      end--;
+    }
+
+    return end == code.length() ? code : code.substring(0, end) + "\n";
+  }
+
+  // same characters as the \s regex class
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static Map<String, String> createOptions() {
+    final Map<String, String> options = new HashMap<>();
     options.put("org.eclipse.jdt.core.formatter.comment.insert_new_line_before_root_tags", "insert");
     options.put("org.eclipse.jdt.core.formatter.disabling_tag", "@formatter:off");
     options.put("org.eclipse.jdt.core.formatter.insert_space_after_comma_in_annotation","insert");
@@ -366,28 +637,6 @@ public class SourceFormat {
     options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
     options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
 
-    int type   = CodeFormatter.K_COMPILATION_UNIT;
-
-    int indent = 0;
-    final CodeFormatter codeFormatter = ToolFactory.createCodeFormatter(options);
-    final TextEdit edit               = codeFormatter.format(
-      type,
-      code,
-      0,
-      code.length(),
-      indent,
-      lineSeparator
-    );
-
-    if (edit == null) { return code; } else {
-      final IDocument document = new Document(code);
-      try { edit.apply(document); } catch (Exception e) {
-        return code;
-      }
-
-      // trim at the end of string
-      return document.get().replaceAll("\\s+$", "\n");
-    }
+    return options;
   }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package com.vesperin.base;
+
+import com.vesperin.utils.Strings;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Loads {@link Source}s from the file system. Files are decoded as they
+ * are on disk, line separators included, so offsets in a source match
+ * offsets in its file.
+ *
+ * @author Huascar Sanchez
+ */
+public class Sources {
+  private static final String JAVA_EXTENSION  = ".java";
+
+  // files at least this large are memory-mapped rather than read
+  private static final long   MAPPING_THRESHOLD = 1 << 20;
+
+  private Sources(){
+    throw new Error(
+      "Cannot be instantiated"
+    );
+  }
+
+  /**
+   * Reads a source file. Its charset is detected from a byte order mark;
+   * files without one are decoded as UTF-8 and, if they are not valid
+   * UTF-8, as ISO-8859-1.
+   *
+   * @param file the file to read.
+   * @return a new source object named after the file.
+   */
+  public static Source read(Path file) {
+    return read(file, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Reads a source file, using a fallback charset for files that have no
+   * byte order mark and are not valid UTF-8.
+   *
+   * @param file the file to read.
+   * @param fallback the charset to use when detection fails.
+   * @return a new source object named after the file.
+   */
+  public static Source read(Path file, Charset fallback) {
+    final String name = Strings.fileNameWithoutExtension(file.toFile());
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return Source.from(name, decode(bytesOf(channel), fallback).toString());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Lazily reads every Java file under a directory. The returned stream
+   * holds open directories, so it should be closed once consumed; e.g., by
+   * a try-with-resources statement.
+   *
+   * @param directory the root directory.
+   * @return a stream of source objects.
+   */
+  public static Stream<Source> walk(Path directory) {
+    return javaFiles(directory).map(Sources::read);
+  }
+
+  /**
+   * Lazily finds every Java file under a directory, without reading it.
+   * The returned stream should be closed once consumed.
+   *
+   * @param directory the root directory.
+   * @return a stream of paths to Java files.
+   */
+  public static Stream<Path> javaFiles(Path directory) {
+    try {
+      return Files.walk(directory)
+        .filter(p -> p.toString().endsWith(JAVA_EXTENSION))
+        .filter(Files::isRegularFile);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static ByteBuffer bytesOf(FileChannel channel) throws IOException {
+    final long size = channel.size();
+    if (size >= MAPPING_THRESHOLD) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      // keeps reading until the buffer is full or the file ends
+    }
+
+    buffer.flip();
+    return buffer;
+  }
+
+  private static CharBuffer decode(ByteBuffer bytes, Charset fallback) throws CharacterCodingException {
+    final Charset bom = skipByteOrderMark(bytes);
+    if (bom != null) {
+      return decoder(bom, CodingErrorAction.REPLACE).decode(bytes);
+    }
+
+    bytes.mark();
+    try {
+      return decoder(StandardCharsets.UTF_8, CodingErrorAction.REPORT).decode(bytes);
+    } catch (CharacterCodingException notUtf8) {
+      bytes.reset();
+      return decoder(fallback, CodingErrorAction.REPLACE).decode(bytes);
+    }
+  }
+
+  private static CharsetDecoder decoder(Charset charset, CodingErrorAction action) {
+    return charset.newDecoder()
+      .onMalformedInput(action)
+      .onUnmappableCharacter(action);
+  }
+
+  /**
+   * Consumes the byte order mark at the start of the bytes, if any.
+   *
+   * @return the charset the mark denotes; null if there is no mark.
+   */
+  private static Charset skipByteOrderMark(ByteBuffer bytes) {
+    final int at = bytes.position();
+
+    if (bytes.remaining() >= 3
+      && (bytes.get(at) & 0xFF) == 0xEF
+      && (bytes.get(at + 1) & 0xFF) == 0xBB
+      && (bytes.get(at + 2) & 0xFF) == 0xBF) {
+
+      bytes.position(at + 3);
+      return StandardCharsets.UTF_8;
+    }
+
+    if (bytes.remaining() >= 2) {
+      final int first   = bytes.get(at) & 0xFF;
+      final int second  = bytes.get(at + 1) & 0xFF;
+
+      if (first == 0xFE && second == 0xFF) {
+        bytes.position(at + 2);
+        return StandardCharsets.UTF_16BE;
+      }
+
+      if (first == 0xFF && second == 0xFE) {
+        bytes.position(at + 2);
+        return StandardCharsets.UTF_16LE;
+      }
+    }
+
+    return null;
+  }
+}
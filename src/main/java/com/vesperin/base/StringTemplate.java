@@ -1,10 +1,19 @@
 package com.vesperin.base;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * A text with holes (e.g., {@code ${name}}), similar to a velocity template.
+ * A template is compiled once into literal and hole segments; rendering it
+ * is then a single pass over those segments. Values are inserted as they
+ * are, so they may contain {@code $} or {@code \}. A compiled template is
+ * immutable and can be rendered by many threads at once.
+ *
  * @author Huascar Sanchez
  */
 public class StringTemplate {
@@ -13,8 +22,60 @@ public class StringTemplate {
   static final String   REGEX        = FIELD_START + "([^}]+)" + FIELD_END;
   static final Pattern  PATTERN      = Pattern.compile(REGEX);
 
-  private StringTemplate(){
-    throw new Error("Cannot be instantiated");
+  // literals[i] precedes holes[i]; the last literal follows the last hole
+  private final String[]  literals;
+  private final String[]  holes;
+  private final int       literalLength;
+
+  private StringTemplate(String[] literals, String[] holes){
+    this.literals = literals;
+    this.holes    = holes;
+
+    int length = 0;
+    for (String each : literals) {
+      length += each.length();
+    }
+
+    this.literalLength = length;
+  }
+
+  /**
+   * Compiles a text into a template.
+   *
+   * @param raw the text to compile.
+   * @return a new template.
+   */
+  public static StringTemplate compile(String raw){
+    final Matcher       matcher   = PATTERN.matcher(raw);
+    final List<String>  literals  = new ArrayList<>();
+    final List<String>  holes     = new ArrayList<>();
+
+    int from = 0;
+    while (matcher.find()) {
+      literals.add(raw.substring(from, matcher.start()));
+      // ${a.b} is filled with the value of a
+      holes.add(matcher.group(1).split("\\.")[0]);
+      from = matcher.end();
+    }
+
+    literals.add(raw.substring(from));
+
+    return new StringTemplate(
+      literals.toArray(new String[literals.size()]),
+      holes.toArray(new String[holes.size()])
+    );
+  }
+
+  /**
+   * Compiles a source's content into a template. Templates are not cached;
+   * callers rendering the same source many times should hold on to the
+   * compiled template (see {@link Source#from(Source, StringTemplate, Map)}).
+   *
+   * @param source the template source.
+   * @return a new template.
+   */
+  public static StringTemplate of(Source source){
+    return compile(source.getContent());
   }
 
   /**
@@ -25,16 +86,7 @@ public class StringTemplate {
    * @return the processed string.
    */
   public static String process(String raw, Map<String, String> objects){
-    final Matcher matcher = PATTERN.matcher(raw);
-
-    String result = raw;
-    while (matcher.find()) {
-      String[] found  = matcher.group(1).split("\\.");
-      String   object = objects.get(found[0]);
-      result = result.replaceFirst(REGEX, object);
-    }
-
-    return result;
+    return compile(raw).render(objects);
   }
 
   /**
@@ -47,4 +99,38 @@ public class StringTemplate {
     return matcher.find();
   }
 
-}
\ No newline at end of file
+  /**
+   * @return true if this template has holes; false otherwise.
+   */
+  public boolean hasHoles(){
+    return holes.length > 0;
+  }
+
+  /**
+   * Fills the holes of this template.
+   *
+   * @param objects a mapping between holes and actual values.
+   * @return the processed string.
+   * @throws NullPointerException if a hole has no value.
+   */
+  public String render(Map<String, String> objects){
+    final String[] values = new String[holes.length];
+
+    int length = literalLength;
+    for (int i = 0; i < holes.length; i++) {
+      values[i] = Objects.requireNonNull(objects.get(holes[i]), "No value for " + holes[i]);
+      length   += values[i].length();
+    }
+
+    final StringBuilder result = new StringBuilder(length);
+    for (int i = 0; i < holes.length; i++) {
+      result.append(literals[i]).append(values[i]);
+    }
+
+    return result.append(literals[holes.length]).toString();
+  }
+
+  @Override public String toString() {
+    return "StringTemplate(holes=" + holes.length + ")";
+  }
+}
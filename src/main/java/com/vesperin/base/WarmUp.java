@@ -0,0 +1,100 @@
+package com.vesperin.base;
+
+import com.vesperin.base.locators.UnitLocation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up the parsing stack. The first parse pays for loading JDT's
+ * classes, reading its compiler options and setting up the parser's name
+ * environment; calling {@link #warmUp(Configuration)} right after startup
+ * moves that cost out of the first real request.
+ *
+ * <p>{@link #main(String[])} reports how long a cold and a warm run take
+ * within one JVM. It is also the training run of the build's
+ * {@code cdsArchive} task, which dumps the classes it loads into an AppCDS
+ * archive; {@code cdsStartup} times whole JVM runs of it with and without
+ * that archive.
+ *
+ * @author Huascar Sanchez
+ */
+public class WarmUp {
+  // parsed as a compilation unit
+  private static final Source UNIT = Source.from("WarmUp",
+    "import java.util.List;\n"
+      + "public class WarmUp {\n"
+      + "  private int count;\n"
+      + "  public int sum(List<Integer> values) {\n"
+      + "    int total = count;\n"
+      + "    for (Integer each : values) { total += each; }\n"
+      + "    return total;\n"
+      + "  }\n"
+      + "}\n"
+  );
+
+  // parsed as class body declarations
+  private static final Source BODY = Source.from("WarmUp",
+    "public int twice(int x) {\n"
+      + "  return x * 2;\n"
+      + "}\n"
+  );
+
+  // parsed as statements
+  private static final Source STATEMENTS = Source.from("WarmUp",
+    "int x = 1;\n"
+      + "System.out.println(x + 1);\n"
+  );
+
+  private WarmUp(){
+    throw new Error(
+      "Cannot be instantiated"
+    );
+  }
+
+  /**
+   * Exercises the three parsing modes of {@link JavaParser#parseJava(Source)},
+   * the {@link ScopeAnalyser} and {@link SourceFormat}.
+   *
+   * @param configuration the configuration of the parsers to warm up.
+   * @return the time the warm-up took, in nanoseconds.
+   */
+  public static long warmUp(Configuration configuration){
+    final long start = System.nanoTime();
+
+    final JavaParser parser  = new EclipseJavaParser(configuration);
+    final Context    context = parser.parseJava(UNIT);
+
+    parser.parseJava(BODY);
+    parser.parseJava(STATEMENTS);
+
+    final ScopeAnalyser analyser = context.getScopeAnalyser();
+    for (UnitLocation each : context.locateMethods()) {
+      analyser.getUsedLocalDeclarationsInScope(each);
+      analyser.getAllBindings(each, each.getUnitNode());
+    }
+
+    SourceFormat.format(UNIT.getContent());
+
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Warms up the parsing stack twice and reports the time of the cold
+   * (first) and warm (second) runs.
+   *
+   * @param args ignored.
+   */
+  public static void main(String[] args) {
+    // the cold run includes creating the configuration
+    final long start = System.nanoTime();
+    final Configuration configuration = new EclipseJavaParser().getConfiguration();
+    warmUp(configuration);
+
+    final long cold = System.nanoTime() - start;
+    final long warm = warmUp(configuration);
+
+    System.out.println(
+      "Cold start: " + TimeUnit.NANOSECONDS.toMillis(cold) + "ms, "
+        + "warm start: " + TimeUnit.NANOSECONDS.toMillis(warm) + "ms"
+    );
+  }
+}
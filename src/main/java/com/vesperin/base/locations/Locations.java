@@ -6,6 +6,7 @@ import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.dom.ASTNode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -121,6 +122,88 @@ public class Locations {
   }
 
 
+  /**
+   * Creates new locations for the given file, one per pair of starting and
+   * ending offsets. Rather than rescanning the contents for each location,
+   * the offsets are sorted and converted to positions in a single pass.
+   *
+   * @param code the {@link Source} object containing the locations
+   * @param contents the current contents of the file
+   * @param startOffsets the starting offsets
+   * @param endOffsets the ending offsets
+   * @return the new locations, in the order of the given offsets
+   */
+  public static List<Location> createLocations(
+      Source code,
+      String contents,
+      int[] startOffsets,
+      int[] endOffsets) {
+
+    if (startOffsets.length != endOffsets.length) {
+      throw new IllegalArgumentException("Unpaired offsets");
+    }
+
+    final int count = startOffsets.length;
+    final int size  = contents.length();
+
+    // offsets as (offset << 32 | slot); even slots are starts, odd slots are ends
+    final long[] keys = new long[count * 2];
+    for (int i = 0; i < count; i++) {
+      int startOffset = startOffsets[i];
+      int endOffset   = endOffsets[i];
+
+      if (startOffset < 0 || endOffset < startOffset) {
+        throw new IllegalArgumentException("Invalid offsets");
+      }
+
+      endOffset   = Math.min(endOffset, size);
+      startOffset = Math.min(startOffset, endOffset);
+
+      keys[2 * i]     = ((long) startOffset << 32) | (2 * i);
+      keys[2 * i + 1] = ((long) endOffset << 32) | (2 * i + 1);
+    }
+
+    Arrays.sort(keys);
+
+    final Position[] positions = new Position[count * 2];
+
+    int line        = 0;
+    int lineOffset  = 0;
+    char prev       = 0;
+    int next        = 0;
+
+    for (int offset = 0; offset <= size && next < keys.length; offset++) {
+      while (next < keys.length && (int) (keys[next] >>> 32) == offset) {
+        positions[(int) keys[next]] = createPosition(line, offset - lineOffset, offset);
+        next++;
+      }
+
+      if (offset == size) break;
+
+      char c = contents.charAt(offset);
+
+      if (c == '\n') {
+        lineOffset = offset + 1;
+        if (prev != '\r') {
+          line++;
+        }
+      } else if (c == '\r') {
+        line++;
+        lineOffset = offset + 1;
+      }
+
+      prev = c;
+    }
+
+    final List<Location> locations = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      locations.add(createLocation(code, positions[2 * i], positions[2 * i + 1]));
+    }
+
+    return locations;
+  }
+
+
   /**
    * Creates a new location for the given file
    *
@@ -155,16 +238,26 @@ public class Locations {
    * @return {@code true} if a code location of a node covers the location of another node.
    */
   public static boolean covers(Location base, Location other){
-    final Position start = base.getStart();
-    final Position end   = base.getEnd();
-
-    final Position otherStart = other.getStart();
-    final Position otherEnd   = other.getEnd();
+    return covers(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
+  }
 
-    final int exclusiveEndOffset = end.getOffset() + 1;
+  /**
+   * Offset-only version of {@link #covers(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the base range covers the other range.
+   */
+  public static boolean covers(int start, int end, int otherStart, int otherEnd){
+    final int exclusiveEndOffset = end + 1;
 
-    return start.getOffset() <= otherStart.getOffset()
-        && (otherEnd.getOffset()) <= exclusiveEndOffset;
+    return start <= otherStart
+        && otherEnd <= exclusiveEndOffset;
   }
 
 
@@ -228,11 +321,24 @@ public class Locations {
   }
 
   public static boolean isBeforeBaseLocation(Location base, Location other){
-    final Position otherEnd     = other.getEnd();
-    final int nodeEnd           = otherEnd.getOffset();
-    final Position start        = base.getStart();
+    return isBeforeBaseLocation(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
+  }
 
-    return (nodeEnd <= start.getOffset());
+  /**
+   * Offset-only version of {@link #isBeforeBaseLocation(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the other range ends before the base range starts.
+   */
+  @SuppressWarnings("UnusedParameters")
+  public static boolean isBeforeBaseLocation(int start, int end, int otherStart, int otherEnd){
+    return (otherEnd <= start);
   }
 
   /**
@@ -247,17 +353,27 @@ public class Locations {
   public static boolean inside(Location other, Location base){
     if(base.same(other)) return true;
 
-    final Position start = base.getStart();
-    final Position end   = base.getEnd();
-
-    final Position otherStart = other.getStart();
-    final Position otherEnd   = other.getEnd();
+    return inside(
+      other.getStart().getOffset(), other.getEnd().getOffset(),
+      base.getStart().getOffset(), base.getEnd().getOffset()
+    );
+  }
 
-//    return end.getOffset() > otherStart.getOffset()
-//        && otherEnd.getOffset() > start.getOffset();
+  /**
+   * Offset-only version of {@link #inside(Location, Location)}. Two ranges
+   * with the same offsets are the same range.
+   *
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @return {@code true} if the other range is inside the base range.
+   */
+  public static boolean inside(int otherStart, int otherEnd, int start, int end){
+    if(start == otherStart && end == otherEnd) return true;
 
-    return start.getOffset() < otherStart.getOffset()
-        && (otherEnd.getOffset()) < end.getOffset();
+    return start < otherStart
+        && otherEnd < end;
   }
 
   /**
@@ -282,20 +398,48 @@ public class Locations {
    * @return {@code true} if <tt>this</tt> location intersects with another location.
    */
   public static boolean intersects(Location base, Location other){
-    return !Locations.isBeforeBaseLocation(base, other)     // !before
-      && !(covers(base, other))                       // !within
-      && !Locations.isAfterBaseLocation(base, other); // !after
+    return intersects(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
   }
 
-  public static boolean isAfterBaseLocation(Location base, Location other){
-    final Position otherStart   = other.getStart();
-    final Position end          = base.getEnd();
+  /**
+   * Offset-only version of {@link #intersects(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the base range intersects the other range.
+   */
+  public static boolean intersects(int start, int end, int otherStart, int otherEnd){
+    return !isBeforeBaseLocation(start, end, otherStart, otherEnd)   // !before
+      && !(covers(start, end, otherStart, otherEnd))                // !within
+      && !isAfterBaseLocation(start, end, otherStart, otherEnd);    // !after
+  }
 
-    final int nodeStart     = otherStart.getOffset();
-    final int exclusiveEnd  = end.getOffset() + 1;
+  public static boolean isAfterBaseLocation(Location base, Location other){
+    return isAfterBaseLocation(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
+  }
 
+  /**
+   * Offset-only version of {@link #isAfterBaseLocation(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the other range starts after the base range ends.
+   */
+  @SuppressWarnings("UnusedParameters")
+  public static boolean isAfterBaseLocation(int start, int end, int otherStart, int otherEnd){
+    final int exclusiveEnd  = end + 1;
 
-    return (exclusiveEnd <= nodeStart);
+    return (exclusiveEnd <= otherStart);
   }
 
 
@@ -307,18 +451,26 @@ public class Locations {
    * @return {@code true} if a given node location lies outside another node's location.
    */
   public static boolean outside(Location base, Location other){
-    final Position otherStart   = other.getStart();
-    final Position otherEnd     = other.getEnd();
-    final Position start        = base.getStart();
-    final Position end          = base.getEnd();
-
-    final int nodeStart = otherStart.getOffset();
-    final int nodeEnd   = otherEnd.getOffset();
+    return outside(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
+  }
 
-    final int exclusiveEnd = end.getOffset() + 1;
+  /**
+   * Offset-only version of {@link #outside(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the other range lies outside the base range.
+   */
+  public static boolean outside(int start, int end, int otherStart, int otherEnd){
+    final int exclusiveEnd = end + 1;
 
-    final boolean nodeBeforeBase = nodeEnd < start.getOffset();
-    final boolean baseBeforeNode = exclusiveEnd < nodeStart;
+    final boolean nodeBeforeBase = otherEnd < start;
+    final boolean baseBeforeNode = exclusiveEnd < otherStart;
 
     return nodeBeforeBase || baseBeforeNode;
   }
@@ -332,16 +484,27 @@ public class Locations {
    * @return {@code true} if a given code location ends in another code location.
    */
   public static boolean endsInside(Location base, Location other){
-    final Position otherStart   = other.getStart();
-    final Position otherEnd     = other.getEnd();
-    final Position end          = base.getEnd();
-
+    return endsInside(
+      base.getStart().getOffset(), base.getEnd().getOffset(),
+      other.getStart().getOffset(), other.getEnd().getOffset()
+    );
+  }
 
-    final int nodeStart     = otherStart.getOffset();
-    final int exclusiveEnd  = end.getOffset() + 1;
+  /**
+   * Offset-only version of {@link #endsInside(Location, Location)}.
+   *
+   * @param start The start offset of the base location.
+   * @param end The end offset of the base location.
+   * @param otherStart The start offset of another node.
+   * @param otherEnd The end offset of another node.
+   * @return {@code true} if the base range ends inside the other range.
+   */
+  @SuppressWarnings("UnusedParameters")
+  public static boolean endsInside(int start, int end, int otherStart, int otherEnd){
+    final int exclusiveEnd  = end + 1;
 
-    return nodeStart < exclusiveEnd
-      && exclusiveEnd < otherEnd.getOffset();
+    return otherStart < exclusiveEnd
+      && exclusiveEnd < otherEnd;
   }
 
 
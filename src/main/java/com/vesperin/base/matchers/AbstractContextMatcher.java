@@ -5,6 +5,8 @@ import com.vesperin.base.locations.Locations;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
 
+import java.util.Objects;
+
 /**
  * @author Huascar Sanchez
  */
@@ -18,10 +20,21 @@ public abstract class AbstractContextMatcher implements ContextMatcher {
    * use.
    *
    * @param mode the parsing mode.
+   * @param configuration the configuration of this matcher's own parser.
    */
   protected AbstractContextMatcher(int mode, Configuration configuration){
+    this(mode, new EclipseJavaParser(configuration));
+  }
+
+  /**
+   * Creates a matcher that parses with a given parser, rather than its own.
+   *
+   * @param mode the parsing mode.
+   * @param parser the parser to use.
+   */
+  protected AbstractContextMatcher(int mode, JavaParser parser){
     this.mode     = mode;
-    this.parser   = new EclipseJavaParser(configuration);
+    this.parser   = Objects.requireNonNull(parser);
   }
 
   protected static ParsedUnit bindProgramUnitToContext(Context context, ParsedUnit unit){
@@ -20,22 +20,50 @@ public class MatchMaker {
     );
   }
 
+  // the matchers of the last configuration used on each thread
+  private static final ThreadLocal<Matchers> MATCHERS = new ThreadLocal<>();
+
+  /**
+   * Returns the matchers for the supported kinds of code. The matchers
+   * parse with their own parser, built from the given parser's
+   * configuration; they are created once per thread and configuration,
+   * and must not be handed to other threads.
+   *
+   * @param javaParser the parser whose configuration the matchers use.
+   * @return the list of matchers, in the order they should be tried.
+   */
   public static List<ContextMatcher> generateUnitMatchers(JavaParser javaParser){
-
     final Configuration configuration = javaParser.getConfiguration();
 
-    final List<ContextMatcher> safeList = Arrays.asList(
-      new ValidCompilationUnitMatching(configuration),
-      new MissingClassDeclaration(configuration),
-      new MissingClassAndMethodBodyDeclarations(configuration)
-    );
+    Matchers matchers = MATCHERS.get();
+    if(matchers == null || matchers.configuration != configuration){
+      matchers = new Matchers(configuration);
+      MATCHERS.set(matchers);
+    }
+
+    return matchers.list;
+  }
+
+  private static class Matchers {
+    final Configuration        configuration;
+    final List<ContextMatcher> list;
 
-    return Immutable.listOf(safeList);
+    Matchers(Configuration configuration){
+      // the matchers are tried one after the other, so they share a parser
+      final JavaParser parser = new EclipseJavaParser(configuration);
+
+      this.configuration = configuration;
+      this.list          = Immutable.listOf(Arrays.asList(
+        new ValidCompilationUnitMatching(parser),
+        new MissingClassDeclaration(parser),
+        new MissingClassAndMethodBodyDeclarations(parser)
+      ));
+    }
   }
 
   static class ValidCompilationUnitMatching extends AbstractContextMatcher {
-    ValidCompilationUnitMatching(Configuration configuration) {
-      super(ASTParser.K_COMPILATION_UNIT, configuration);
+    ValidCompilationUnitMatching(JavaParser parser) {
+      super(ASTParser.K_COMPILATION_UNIT, parser);
     }
 
     @Override public ParsedUnit matches(Context context) {
@@ -56,8 +84,8 @@ public class MatchMaker {
   }
 
   static class MissingClassDeclaration extends AbstractContextMatcher {
-    MissingClassDeclaration(Configuration configuration){
-      super(ASTParser.K_CLASS_BODY_DECLARATIONS, configuration);
+    MissingClassDeclaration(JavaParser parser){
+      super(ASTParser.K_CLASS_BODY_DECLARATIONS, parser);
     }
 
     @Override public ParsedUnit matches(Context context) {
@@ -76,8 +104,8 @@ public class MatchMaker {
   }
 
   static class MissingClassAndMethodBodyDeclarations extends AbstractContextMatcher {
-    MissingClassAndMethodBodyDeclarations(Configuration configuration){
-      super(ASTParser.K_STATEMENTS, configuration);
+    MissingClassAndMethodBodyDeclarations(JavaParser parser){
+      super(ASTParser.K_STATEMENTS, parser);
     }
 
     @Override public ParsedUnit matches(Context context) {
@@ -116,11 +116,14 @@ public abstract class ASTNodesSelectionVisitor extends SkeletalVisitor {
 
 
   @Override protected boolean visitNode(ASTNode node) {
-    final Location nodeLocation = Locations.locate(node);
+    final int start     = selectedArea.getStart().getOffset();
+    final int end       = selectedArea.getEnd().getOffset();
+    final int nodeStart = node.getStartPosition();
+    final int nodeEnd   = nodeStart + node.getLength();
 
-    if(Locations.outside(selectedArea, nodeLocation)) {
+    if(Locations.outside(start, end, nodeStart, nodeEnd)) {
       return false;
-    } else if(Locations.covers(selectedArea, nodeLocation)) {
+    } else if(Locations.covers(start, end, nodeStart, nodeEnd)) {
       if (isFirstNode()) {
         handleFirstSelectedNode(node);
       } else {
@@ -128,10 +131,10 @@ public abstract class ASTNodesSelectionVisitor extends SkeletalVisitor {
       }
 
       return traverseSelectedNode;
-    } else if(Locations.covers(nodeLocation, selectedArea)){
+    } else if(Locations.covers(nodeStart, nodeEnd, start, end)){
       lastCoveringNode = node;
       return true;
-    } else if(Locations.endsInside(selectedArea, nodeLocation)){
+    } else if(Locations.endsInside(start, end, nodeStart, nodeEnd)){
       return handleSelectionEndsIn(node);
     }
 
@@ -343,9 +343,10 @@ public class ImportReferencesVisitor extends SkeletalVisitor {
 
   @Override public boolean visit(TypeDeclaration node) {
     if(this.selection == null) return true;
-    final Location typeLocation = Locations.locate(node);
-    return Locations.inside(this.selection, typeLocation)
-        ||  typeLocation.same(this.selection)
+    final int nodeStart = node.getStartPosition();
+    return Locations.inside(
+          this.selection.getStart().getOffset(), this.selection.getEnd().getOffset(),
+          nodeStart, nodeStart + node.getLength())
         || isNodeAffected(node);
   }
 
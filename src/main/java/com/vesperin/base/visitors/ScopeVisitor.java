@@ -27,10 +27,13 @@ import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
  * @author Huascar Sanchez
  */
 public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
-  private Location scope;
   private int      flags;
   private boolean  breakStatement;
 
+  // the scope's offsets; nodes are checked against them without creating locations
+  private final int scopeStart;
+  private final int scopeEnd;
+
   private final BindingRequest request;
 
   /**
@@ -38,9 +41,10 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
    * a request to visit JavaDoc tags as parameters.
    */
   public ScopeVisitor(Location scope, int flags, BindingRequest request) {
-    this.scope      = scope;
     this.flags      = flags;
     this.request    = request;
+    this.scopeStart = scope.getStart().getOffset();
+    this.scopeEnd   = scope.getEnd().getOffset();
     breakStatement  = false;
   }
 
@@ -49,15 +53,14 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
   }
 
 
-  private static boolean isInsideScope(ASTNode node, Location scope) {
-
-    final Location location = Locations.locate(node);
+  private boolean isInsideScope(ASTNode node) {
+    final int start = node.getStartPosition();
 
-    return Locations.inside(location, scope);
+    return Locations.inside(start, start + node.getLength(), scopeStart, scopeEnd);
   }
 
   @Override public boolean visit(MethodDeclaration node) {
-    if (isInsideScope(node, scope)) {
+    if (isInsideScope(node)) {
       final Block body  = node.getBody();
       if (body != null) {
         body.accept(this);
@@ -73,7 +76,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
 
   @Override public boolean visit(TypeParameter node) {
     if (Scope.isTypesFlagAvailable(flags)
-        && node.getStartPosition() < scope.getStart().getOffset()) {
+        && node.getStartPosition() < scopeStart) {
 
       breakStatement = request.accept(
           node.getName().resolveBinding()
@@ -86,7 +89,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
   @Override public boolean visit(SwitchCase node) {
     // switch on enum allows to use enum constants without qualification
     if (Scope.isVariablesFlagAvailable(flags)
-        && !node.isDefault() && isInsideScope(node.getExpression(), scope)) {
+        && !node.isDefault() && isInsideScope(node.getExpression())) {
 
       final ASTNode         nonNullParent   = Objects.requireNonNull(node.getParent());
       final SwitchStatement switchStatement = (SwitchStatement) nonNullParent;
@@ -108,11 +111,11 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
 
 
   public boolean visit(Initializer node) {
-    return !breakStatement && isInsideScope(node, scope);
+    return !breakStatement && isInsideScope(node);
   }
 
   public boolean visit(Statement node) {
-    return !breakStatement && isInsideScope(node, scope);
+    return !breakStatement && isInsideScope(node);
   }
 
   @SuppressWarnings("UnusedParameters")
@@ -121,7 +124,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
   }
 
   public boolean visit(Block node) {
-    if (isInsideScope(node, scope)) {
+    if (isInsideScope(node)) {
       visitBackwards(node.statements());
     }
     return false;
@@ -129,7 +132,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
 
   public boolean visit(VariableDeclaration node) {
     if (Scope.isVariablesFlagAvailable(flags)
-        && node.getStartPosition() < scope.getStart().getOffset()) {
+        && node.getStartPosition() < scopeStart) {
 
       breakStatement = request.accept(node.resolveBinding());
     }
@@ -148,7 +151,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
   }
 
   public boolean visit(CatchClause node) {
-    if (isInsideScope(node, scope)) {
+    if (isInsideScope(node)) {
       node.getBody().accept(this);
       node.getException().accept(this);
     }
@@ -156,7 +159,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
   }
 
   public boolean visit(ForStatement node) {
-    if (isInsideScope(node, scope)) {
+    if (isInsideScope(node)) {
       node.getBody().accept(this);
       visitBackwards(node.initializers());
     }
@@ -165,14 +168,14 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
 
   public boolean visit(TypeDeclarationStatement node) {
     if (Scope.isTypesFlagAvailable(flags)
-        && node.getStartPosition() + node.getLength() < scope.getStart().getOffset()) {
+        && node.getStartPosition() + node.getLength() < scopeStart) {
 
       breakStatement = request.accept(node.resolveBinding());
 
       return false;
     }
 
-    return !breakStatement && isInsideScope(node, scope);
+    return !breakStatement && isInsideScope(node);
   }
 
   private void visitBackwards(List<?> list) {
@@ -180,7 +183,7 @@ public class ScopeVisitor extends ASTVisitorWithHierarchicalWalk {
 
     for (int i= list.size() - 1; i >= 0; i--) {
       final ASTNode astNode = (ASTNode) list.get(i);
-      if (astNode.getStartPosition() < scope.getStart().getOffset()) {
+      if (astNode.getStartPosition() < scopeStart) {
         astNode.accept(this);
       }
     }
@@ -145,9 +145,11 @@ public class StatementsSelectionVisitor extends ASTNodesSelectionVisitor {
 
   @Override public void endVisit(SynchronizedStatement node) {
     final ASTNode  firstNode    = getFirstSelectedNode();
-    final Location nodeLocation = Locations.locate(firstNode);
+    final Location selection    = getSelection();
+    final int      nodeStart    = firstNode.getStartPosition();
 
-    if(Locations.covers(getSelection(), nodeLocation)){
+    if(Locations.covers(selection.getStart().getOffset(), selection.getEnd().getOffset(),
+        nodeStart, nodeStart + firstNode.getLength())){
       if(firstNode == node.getBody()){
         invalidSelection(true);
       }
@@ -164,9 +166,11 @@ public class StatementsSelectionVisitor extends ASTNodesSelectionVisitor {
       super.endVisit(node);
       return;
     }
-    final Location nodeLocation = Locations.locate(firstNode);
+    final Location selection    = getSelection();
+    final int      nodeStart    = firstNode.getStartPosition();
 
-    if(Locations.isAfterBaseLocation(getSelection(), nodeLocation)){
+    if(Locations.isAfterBaseLocation(selection.getStart().getOffset(), selection.getEnd().getOffset(),
+        nodeStart, nodeStart + firstNode.getLength())){
       if(firstNode == node.getBody() || firstNode == node.getFinally()){
         invalidSelection(true);
       } else {
@@ -200,11 +204,12 @@ public class StatementsSelectionVisitor extends ASTNodesSelectionVisitor {
 
 
   private boolean doAfterValidation(ASTNode node, List<ASTNode> selectedNodes) {
-    final Location nodeLocation = Locations.locate(node);
     final Location base         = getSelection();
+    final int      nodeStart    = node.getStartPosition();
     return (selectedNodes.size() > 0
       && node == selectedNodes.get(0).getParent()
-      && Locations.isAfterBaseLocation(base, nodeLocation));
+      && Locations.isAfterBaseLocation(base.getStart().getOffset(), base.getEnd().getOffset(),
+        nodeStart, nodeStart + node.getLength()));
   }
 
 
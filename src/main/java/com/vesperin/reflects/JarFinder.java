@@ -6,14 +6,23 @@ import com.vesperin.utils.Strings;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.ProviderNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,12 +38,111 @@ import java.util.jar.Manifest;
 import java.util.stream.Stream;
 
 public class JarFinder {
+  private static final String JRT_URI = "jrt:/";
+  private static final String CLASS_EXTENSION = ".class";
+
+  // The JRE's jars (or modules) do not change while the JVM runs, and
+  // reading them costs a second or more; unlike jar sets found on a class
+  // path, which callers may rescan, this one is computed once per process.
+  private static volatile Set<Jar> jreJarFiles;
 
   /**
-   * Returns a set of jar files in Java's runtime
+   * Returns a set of jar files in Java's runtime. On Java 9+, there is one
+   * jar per module, read from the {@code jrt:/} file system. The result is
+   * computed once.
    */
   static Set<Jar> findJREJarFiles() throws IOException {
-    return findJarFiles(jreLibPath());
+    if (jreJarFiles == null) {
+      synchronized (JarFinder.class) {
+        if (jreJarFiles == null) {
+          final Optional<FileSystem> jrt = jrtFileSystem();
+          jreJarFiles = jrt.isPresent()
+              ? findModuleJarFiles(jrt.get(), ClassLoaders.inJdkJars())
+              : findJarFiles(jreLibPath());
+        }
+      }
+    }
+
+    return jreJarFiles;
+  }
+
+  /**
+   * Returns a jar per module of the {@code jrt:/} file system. Only the
+   * packages a module exports to everyone are read; class entries are
+   * streamed straight from the runtime image.
+   */
+  static Set<Jar> findModuleJarFiles(FileSystem jrt, ClassLoader classLoader) throws IOException {
+    final Map<String, Set<String>> exports = JdkPredicates.ModuleExports.exportedPackages();
+
+    final Set<Jar> jars = new HashSet<>();
+    for (Map.Entry<String, Set<String>> each : exports.entrySet()) {
+      final Jar jar = moduleJar(jrt.getPath("/modules", each.getKey()), each.getValue(), classLoader);
+      if (!jar.classes().isEmpty()) {
+        jars.add(jar);
+      }
+    }
+
+    return Immutable.setOf(jars);
+  }
+
+  private static Jar moduleJar(Path module, Set<String> exportedPackages, ClassLoader classLoader) throws IOException {
+    final Set<Class<?>> classes = new HashSet<>();
+
+    for (String each : exportedPackages) {
+      final List<String> names = new ArrayList<>();
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(module.resolve(each.replace('.', '/')))) {
+        for (Path entry : entries) {
+          final String fileName = entry.getFileName().toString();
+          if (fileName.endsWith(CLASS_EXTENSION)) {
+            names.add(fileName.substring(0, fileName.length() - CLASS_EXTENSION.length()));
+          }
+        }
+      } catch (NoSuchFileException | NotDirectoryException notInModule) {
+        continue;
+      }
+
+      // enclosing classes first: a nested class is public only if they are
+      names.sort(Comparator.comparingInt(JarFinder::nestingDepth));
+
+      final Set<String> publicNames = new HashSet<>();
+      for (String name : names) {
+        final int dollar = name.lastIndexOf('$');
+        if (dollar >= 0 && (isAnonymousOrLocal(name, dollar) || !publicNames.contains(name.substring(0, dollar)))) {
+          continue;
+        }
+
+        final Optional<Class<?>> loaded = Walker.nameAsClass(each + "." + name, classLoader);
+        if (loaded.isPresent()) {
+          classes.add(loaded.get());
+          publicNames.add(name);
+        }
+      }
+    }
+
+    // modules have no file of their own; the jar is named after its module
+    return new Jar(new File(module.getFileName().toString()), Immutable.setOf(classes));
+  }
+
+  private static int nestingDepth(String binaryName) {
+    int depth = 0;
+    for (int i = binaryName.indexOf('$'); i >= 0; i = binaryName.indexOf('$', i + 1)) {
+      depth++;
+    }
+
+    return depth;
+  }
+
+  // Outer$1 and Outer$1Local are never public
+  private static boolean isAnonymousOrLocal(String binaryName, int dollar) {
+    return dollar + 1 < binaryName.length() && Character.isDigit(binaryName.charAt(dollar + 1));
+  }
+
+  private static Optional<FileSystem> jrtFileSystem() {
+    try {
+      return Optional.of(FileSystems.getFileSystem(URI.create(JRT_URI)));
+    } catch (ProviderNotFoundException | FileSystemNotFoundException | IllegalArgumentException notJava9) {
+      return Optional.empty();
+    }
   }
 
   /**
@@ -147,7 +255,13 @@ public class JarFinder {
   }
 
   public static Path jreLibPath() {
-    final String jar = SysInfo.SUN_BOOT_PATH.value().split(SysInfo.PATH_SEPARATOR.value())[0];
+    final String bootPath = SysInfo.SUN_BOOT_PATH.value();
+    if (bootPath == null) {
+      // Java 9+: there is no boot class path, and no rt.jar
+      return Paths.get(SysInfo.JAVA_HOME.value(), "lib");
+    }
+
+    final String jar = bootPath.split(SysInfo.PATH_SEPARATOR.value())[0];
     final String fileSeparator = SysInfo.FILE_SEPARATOR.value();
 
     // Windows
@@ -283,22 +397,29 @@ public class JarFinder {
 
     private static Optional<Class<?>> jarEntryAsClass(final JarEntry entry, final ClassLoader classLoader) {
       final JarEntry nonNullEntry = Objects.requireNonNull(entry);
-      final ClassLoader nonNullClassloader = Objects.requireNonNull(classLoader);
 
-      if (nonNullEntry.getName().endsWith(".class")) {
-        try {
+      if (nonNullEntry.getName().endsWith(CLASS_EXTENSION)) {
+        return nameAsClass(pathToCanonicalName(nonNullEntry), classLoader);
+      }
+
+      return Optional.empty();
+    }
 
-          final Class<?> aClass = Class.forName(pathToCanonicalName(nonNullEntry), false /* CLASS INIT NOT REQUIRED */,
-              nonNullClassloader);
+    static Optional<Class<?>> nameAsClass(final String className, final ClassLoader classLoader) {
+      final ClassLoader nonNullClassloader = Objects.requireNonNull(classLoader);
 
-          // We care deeply only about public classes
-          if (JavaClass.isPublic(aClass)) {
-            return Optional.of(aClass);
-          }
+      try {
+
+        final Class<?> aClass = Class.forName(className, false /* CLASS INIT NOT REQUIRED */,
+            nonNullClassloader);
 
-          return Optional.empty();
-        } catch (ClassNotFoundException | NoClassDefFoundError ignored) {
+        // We care deeply only about public classes
+        if (JavaClass.isPublic(aClass)) {
+          return Optional.of(aClass);
         }
+
+        return Optional.empty();
+      } catch (ClassNotFoundException | NoClassDefFoundError ignored) {
       }
 
       return Optional.empty();
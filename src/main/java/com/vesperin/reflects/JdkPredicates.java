@@ -1,27 +1,146 @@
 package com.vesperin.reflects;
 
-import java.util.AbstractMap;
-import java.util.Arrays;
-import java.util.Comparator;
+import com.vesperin.utils.Immutable;
+import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
-import java.util.function.BinaryOperator;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class JdkPredicates {
 
-  private static final Pattern PACKAGES_PATTERN;
+  // the public documented packages of Java SE 8
+  private static final Set<String> SE8_PACKAGES = Immutable.setOf(Stream.of(
+      "java.applet", "java.awt", "java.awt.color",
+      "java.awt.datatransfer", "java.awt.dnd", "java.awt.event",
+      "java.awt.font", "java.awt.geom", "java.awt.im", "java.awt.im.spi", "java.awt.image",
+      "java.awt.image.renderable", "java.awt.print", "java.beans", "java.beans.beancontext",
+      "java.io",
+      "java.lang", "java.lang.annotation", "java.lang.instrument", "java.lang.invoke",
+      "java.lang.management",
+      "java.lang.ref", "java.lang.reflect", "java.math", "java.net", "java.nio",
+      "java.nio.channels",
+      "java.nio.channels.spi", "java.nio.charset", "java.nio.charset.spi", "java.nio.file",
+      "java.nio.file.attribute", "java.nio.file.spi", "java.rmi", "java.rmi.activation",
+      "java.rmi.dgc",
+      "java.rmi.registry", "java.rmi.server", "java.security", "java.security.acl",
+      "java.security.cert",
+      "java.security.interfaces", "java.security.spec", "java.sql", "java.text", "java.text.spi",
+      "java.time",
+      "java.time.chrono", "java.time.format", "java.time.temporal", "java.time.zone", "java.util",
+      "java.util.concurrent", "java.util.concurrent.atomic", "java.util.concurrent.locks",
+      "java.util.function", "java.util.jar", "java.util.logging", "java.util.prefs",
+      "java.util.regex",
+      "java.util.spi", "java.util.stream", "java.util.zip", "javax.accessibility",
+      "javax.activation",
+      "javax.activity", "javax.annotation", "javax.annotation.processing", "javax.crypto",
+      "javax.crypto.interfaces", "javax.crypto.spec", "javax.imageio", "javax.imageio.event",
+      "javax.imageio.metadata", "javax.imageio.plugins.bmp", "javax.imageio.plugins.jpeg",
+      "javax.imageio.spi", "javax.imageio.stream", "javax.jws", "javax.jws.soap",
+      "javax.lang.model",
+      "javax.lang.model.element", "javax.lang.model.type", "javax.lang.model.util",
+      "javax.management",
+      "javax.management.loading", "javax.management.modelmbean", "javax.management.monitor",
+      "javax.management.openmbean", "javax.management.relation", "javax.management.remote",
+      "javax.management.remote.rmi", "javax.management.timer", "javax.naming",
+      "javax.naming.directory",
+      "javax.naming.event", "javax.naming.ldap", "javax.naming.spi", "javax.net", "javax.net.ssl",
+      "javax.print", "javax.print.attribute", "javax.print.attribute.standard",
+      "javax.print.event",
+      "javax.rmi", "javax.rmi.CORBA", "javax.rmi.ssl", "javax.script", "javax.security.auth",
+      "javax.security.auth.callback", "javax.security.auth.kerberos", "javax.security.auth.login",
+      "javax.security.auth.spi", "javax.security.auth.x500", "javax.security.cert",
+      "javax.security.sasl",
+      "javax.sound.midi", "javax.sound.midi.spi", "javax.sound.sampled",
+      "javax.sound.sampled.spi",
+      "javax.sql", "javax.sql.rowset", "javax.sql.rowset.serial", "javax.sql.rowset.spi",
+      "javax.swing",
+      "javax.swing.border", "javax.swing.colorchooser", "javax.swing.event",
+      "javax.swing.filechooser",
+      "javax.swing.plaf", "javax.swing.plaf.basic", "javax.swing.plaf.metal",
+      "javax.swing.plaf.multi",
+      "javax.swing.plaf.nimbus", "javax.swing.plaf.synth", "javax.swing.table",
+      "javax.swing.text",
+      "javax.swing.text.html", "javax.swing.text.html.parser", "javax.swing.text.rtf",
+      "javax.swing.tree",
+      "javax.swing.undo", "javax.tools", "javax.transaction", "javax.transaction.xa", "javax.xml",
+      "javax.xml.bind", "javax.xml.bind.annotation", "javax.xml.bind.annotation.adapters",
+      "javax.xml.bind.attachment", "javax.xml.bind.helpers", "javax.xml.bind.util",
+      "javax.xml.crypto",
+      "javax.xml.crypto.dom", "javax.xml.crypto.dsig", "javax.xml.crypto.dsig.dom",
+      "javax.xml.crypto.dsig.keyinfo", "javax.xml.crypto.dsig.spec", "javax.xml.datatype",
+      "javax.xml.namespace", "javax.xml.parsers", "javax.xml.soap", "javax.xml.stream",
+      "javax.xml.stream.events", "javax.xml.stream.util", "javax.xml.transform",
+      "javax.xml.transform.dom",
+      "javax.xml.transform.sax", "javax.xml.transform.stax", "javax.xml.transform.stream",
+      "javax.xml.validation", "javax.xml.ws", "javax.xml.ws.handler", "javax.xml.ws.handler.soap",
+      "javax.xml.ws.http", "javax.xml.ws.soap", "javax.xml.ws.spi", "javax.xml.ws.spi.http",
+      "javax.xml.ws.wsaddressing", "javax.xml.xpath", "org.ietf.jgss", "org.omg.CORBA",
+      "org.omg.CORBA_2_3",
+      "org.omg.CORBA_2_3.portable", "org.omg.CORBA.DynAnyPackage", "org.omg.CORBA.ORBPackage",
+      "org.omg.CORBA.portable", "org.omg.CORBA.TypeCodePackage", "org.omg.CosNaming",
+      "org.omg.CosNaming.NamingContextExtPackage", "org.omg.CosNaming.NamingContextPackage",
+      "org.omg.Dynamic", "org.omg.DynamicAny", "org.omg.DynamicAny.DynAnyFactoryPackage",
+      "org.omg.DynamicAny.DynAnyPackage", "org.omg.IOP", "org.omg.IOP.CodecFactoryPackage",
+      "org.omg.IOP.CodecPackage", "org.omg.Messaging", "org.omg.PortableInterceptor",
+      "org.omg.PortableInterceptor.ORBInitInfoPackage", "org.omg.PortableServer",
+      "org.omg.PortableServer.CurrentPackage", "org.omg.PortableServer.POAManagerPackage",
+      "org.omg.PortableServer.POAPackage", "org.omg.PortableServer.portable",
+      "org.omg.PortableServer.ServantLocatorPackage", "org.omg.SendingContext",
+      "org.omg.stub.java.rmi",
+      "org.w3c.dom", "org.w3c.dom.bootstrap", "org.w3c.dom.events", "org.w3c.dom.ls",
+      "org.w3c.dom.views",
+      "org.xml.sax", "org.xml.sax.ext", "org.xml.sax.helpers"));
+
+  // the public JDK packages; checked by hash lookup rather than by regex
+  private static volatile Packages packages = new Packages(SE8_PACKAGES);
 
   private JdkPredicates() {
   }
 
+  /**
+   * @return the public documented packages of Java SE 8.
+   */
+  public static Set<String> se8Packages() {
+    return SE8_PACKAGES;
+  }
+
+  /**
+   * Returns the packages exported, to everyone, by the {@code java.*} modules
+   * of the running JVM. On Java 8, which has no modules, it returns the
+   * {@link #se8Packages() Java SE 8 packages}.
+   *
+   * @return the public packages of the running Java SE platform.
+   */
+  public static Set<String> javaSePackages() {
+    final Set<String> exported = ModuleExports.javaSePackages();
+    return exported.isEmpty() ? SE8_PACKAGES : exported;
+  }
+
+  /**
+   * Sets the packages deemed public JDK packages; e.g., {@link #javaSePackages()}
+   * when classifying classes of a Java 9+ runtime. Defaults to the
+   * {@link #se8Packages() Java SE 8 packages}.
+   *
+   * @param packageNames the public JDK package names.
+   */
+  public static void usePackages(Collection<String> packageNames) {
+    packages = new Packages(Immutable.setOf(packageNames.stream()));
+  }
+
+  /**
+   * @return the package names currently deemed public JDK packages.
+   */
+  public static Set<String> packages() {
+    return packages.names;
+  }
+
   /**
    * Returns a {@code Pattern} instance that test if given {@code CharSequence} matches one of
    * existing public JDK packages, such as "java.util", "org.w3c.dom" and so on.
@@ -29,7 +148,7 @@ public class JdkPredicates {
    * @return a {@code Pattern} instance.
    */
   public static Pattern jdkAll() {
-    return PACKAGES_PATTERN;
+    return packages.pattern();
   }
 
   /**
@@ -65,7 +184,7 @@ public class JdkPredicates {
    * documented JDK packages.
    */
   public static boolean inJdk(String packageName) {
-    return packageName != null && inPackage(packageName, jdkAll());
+    return packageName != null && packages.names.contains(packageName);
   }
 
   /**
@@ -79,204 +198,82 @@ public class JdkPredicates {
     return Objects.requireNonNull(pattern).matcher(packageName).matches();
   }
 
-  static {
-
-    final List<String> fullSE8API = Arrays.asList("java.applet", "java.awt", "java.awt.color",
-        "java.awt.datatransfer", "java.awt.dnd", "java.awt.event",
-        "java.awt.font", "java.awt.geom", "java.awt.im", "java.awt.im.spi", "java.awt.image",
-        "java.awt.image.renderable", "java.awt.print", "java.beans", "java.beans.beancontext",
-        "java.io",
-        "java.lang", "java.lang.annotation", "java.lang.instrument", "java.lang.invoke",
-        "java.lang.management",
-        "java.lang.ref", "java.lang.reflect", "java.math", "java.net", "java.nio",
-        "java.nio.channels",
-        "java.nio.channels.spi", "java.nio.charset", "java.nio.charset.spi", "java.nio.file",
-        "java.nio.file.attribute", "java.nio.file.spi", "java.rmi", "java.rmi.activation",
-        "java.rmi.dgc",
-        "java.rmi.registry", "java.rmi.server", "java.security", "java.security.acl",
-        "java.security.cert",
-        "java.security.interfaces", "java.security.spec", "java.sql", "java.text", "java.text.spi",
-        "java.time",
-        "java.time.chrono", "java.time.format", "java.time.temporal", "java.time.zone", "java.util",
-        "java.util.concurrent", "java.util.concurrent.atomic", "java.util.concurrent.locks",
-        "java.util.function", "java.util.jar", "java.util.logging", "java.util.prefs",
-        "java.util.regex",
-        "java.util.spi", "java.util.stream", "java.util.zip", "javax.accessibility",
-        "javax.activation",
-        "javax.activity", "javax.annotation", "javax.annotation.processing", "javax.crypto",
-        "javax.crypto.interfaces", "javax.crypto.spec", "javax.imageio", "javax.imageio.event",
-        "javax.imageio.metadata", "javax.imageio.plugins.bmp", "javax.imageio.plugins.jpeg",
-        "javax.imageio.spi", "javax.imageio.stream", "javax.jws", "javax.jws.soap",
-        "javax.lang.model",
-        "javax.lang.model.element", "javax.lang.model.type", "javax.lang.model.util",
-        "javax.management",
-        "javax.management.loading", "javax.management.modelmbean", "javax.management.monitor",
-        "javax.management.openmbean", "javax.management.relation", "javax.management.remote",
-        "javax.management.remote.rmi", "javax.management.timer", "javax.naming",
-        "javax.naming.directory",
-        "javax.naming.event", "javax.naming.ldap", "javax.naming.spi", "javax.net", "javax.net.ssl",
-        "javax.print", "javax.print.attribute", "javax.print.attribute.standard",
-        "javax.print.event",
-        "javax.rmi", "javax.rmi.CORBA", "javax.rmi.ssl", "javax.script", "javax.security.auth",
-        "javax.security.auth.callback", "javax.security.auth.kerberos", "javax.security.auth.login",
-        "javax.security.auth.spi", "javax.security.auth.x500", "javax.security.cert",
-        "javax.security.sasl",
-        "javax.sound.midi", "javax.sound.midi.spi", "javax.sound.sampled",
-        "javax.sound.sampled.spi",
-        "javax.sql", "javax.sql.rowset", "javax.sql.rowset.serial", "javax.sql.rowset.spi",
-        "javax.swing",
-        "javax.swing.border", "javax.swing.colorchooser", "javax.swing.event",
-        "javax.swing.filechooser",
-        "javax.swing.plaf", "javax.swing.plaf.basic", "javax.swing.plaf.metal",
-        "javax.swing.plaf.multi",
-        "javax.swing.plaf.nimbus", "javax.swing.plaf.synth", "javax.swing.table",
-        "javax.swing.text",
-        "javax.swing.text.html", "javax.swing.text.html.parser", "javax.swing.text.rtf",
-        "javax.swing.tree",
-        "javax.swing.undo", "javax.tools", "javax.transaction", "javax.transaction.xa", "javax.xml",
-        "javax.xml.bind", "javax.xml.bind.annotation", "javax.xml.bind.annotation.adapters",
-        "javax.xml.bind.attachment", "javax.xml.bind.helpers", "javax.xml.bind.util",
-        "javax.xml.crypto",
-        "javax.xml.crypto.dom", "javax.xml.crypto.dsig", "javax.xml.crypto.dsig.dom",
-        "javax.xml.crypto.dsig.keyinfo", "javax.xml.crypto.dsig.spec", "javax.xml.datatype",
-        "javax.xml.namespace", "javax.xml.parsers", "javax.xml.soap", "javax.xml.stream",
-        "javax.xml.stream.events", "javax.xml.stream.util", "javax.xml.transform",
-        "javax.xml.transform.dom",
-        "javax.xml.transform.sax", "javax.xml.transform.stax", "javax.xml.transform.stream",
-        "javax.xml.validation", "javax.xml.ws", "javax.xml.ws.handler", "javax.xml.ws.handler.soap",
-        "javax.xml.ws.http", "javax.xml.ws.soap", "javax.xml.ws.spi", "javax.xml.ws.spi.http",
-        "javax.xml.ws.wsaddressing", "javax.xml.xpath", "org.ietf.jgss", "org.omg.CORBA",
-        "org.omg.CORBA_2_3",
-        "org.omg.CORBA_2_3.portable", "org.omg.CORBA.DynAnyPackage", "org.omg.CORBA.ORBPackage",
-        "org.omg.CORBA.portable", "org.omg.CORBA.TypeCodePackage", "org.omg.CosNaming",
-        "org.omg.CosNaming.NamingContextExtPackage", "org.omg.CosNaming.NamingContextPackage",
-        "org.omg.Dynamic", "org.omg.DynamicAny", "org.omg.DynamicAny.DynAnyFactoryPackage",
-        "org.omg.DynamicAny.DynAnyPackage", "org.omg.IOP", "org.omg.IOP.CodecFactoryPackage",
-        "org.omg.IOP.CodecPackage", "org.omg.Messaging", "org.omg.PortableInterceptor",
-        "org.omg.PortableInterceptor.ORBInitInfoPackage", "org.omg.PortableServer",
-        "org.omg.PortableServer.CurrentPackage", "org.omg.PortableServer.POAManagerPackage",
-        "org.omg.PortableServer.POAPackage", "org.omg.PortableServer.portable",
-        "org.omg.PortableServer.ServantLocatorPackage", "org.omg.SendingContext",
-        "org.omg.stub.java.rmi",
-        "org.w3c.dom", "org.w3c.dom.bootstrap", "org.w3c.dom.events", "org.w3c.dom.ls",
-        "org.w3c.dom.views",
-        "org.xml.sax", "org.xml.sax.ext", "org.xml.sax.helpers");
-
-    final Stream<String> packages = fullSE8API.stream();
 
-    final BinaryOperator<PackageNode> NO_COMBINER = (p1, p2) -> {
-      throw new IllegalStateException();
-    };
-
-    final String ROOT_INDICATOR = "/";
-    final PackageNode root = packages.map(r -> {
-      final String[] split = r.split("\\.");
-      // The sentinel value is to indicate that the "middle" package is also one to be included in Pattern.
-      // Example is "java.awt" which has sub package "java.awt.color" and etc.
-      // On the other hand, middle packages like "java" and "org" is not to be included in Pattern.
-      return Stream.concat(
-          IntStream.range(0, split.length).mapToObj(depth -> PackageNode.of(split[depth], depth)),
-          Stream.of(PackageNode.sentinel(split.length)));
-
-    }).reduce(PackageNode.of(ROOT_INDICATOR, 0), (root_, stream) -> {
-      stream.reduce(root_, (last, current) -> {
-        if (last.containsKey(current)) {
-          return last.get(current);
-        }
-
-        last.add(current);
-        return current;
-
-      }, NO_COMBINER);
-      return root_;
-    }, NO_COMBINER);
-    PACKAGES_PATTERN = Pattern.compile(String.format("^%s$",
-        root.toPatternGroup().replaceFirst("^" + ROOT_INDICATOR, "")));
-  }
+  static class Packages {
+    final Set<String> names;
 
+    private volatile Pattern pattern;
 
-  static class PackageNode extends AbstractMap<PackageNode, PackageNode> {
-
-    private static final String PACKAGE_NAME_SENTINEL = "<>";
-
-    private final String name;
-    private final Map<PackageNode, PackageNode> sub;
-    private final int depth;
-
-    private PackageNode(final String name, int depth) {
-      this.name = name;
-      this.depth = depth;
-      this.sub = new HashMap<>();
+    Packages(Set<String> names) {
+      this.names = names;
     }
 
-    static PackageNode of(final String name, int depth) {
-      return new PackageNode(name, depth);
-    }
+    // only built for callers of jdkAll()
+    Pattern pattern() {
+      if (pattern == null) {
+        final StringJoiner joiner = new StringJoiner("|", "^(?:", ")$");
+        names.stream().sorted().forEach(n -> joiner.add(Pattern.quote(n)));
 
-    static PackageNode sentinel(int depth) {
-      return new PackageNode(PACKAGE_NAME_SENTINEL, depth);
-    }
-
-    public String getName() {
-      return name;
-    }
-
-    @Override
-    public PackageNode put(PackageNode key, PackageNode value) {
-      return sub.put(key, value);
-    }
+        pattern = Pattern.compile(joiner.toString());
+      }
 
-    @Override
-    public PackageNode get(Object key) {
-      return sub.get(key);
+      return pattern;
     }
+  }
 
-    public PackageNode add(PackageNode key) {
-      return put(key, key);
-    }
+  /**
+   * Reads module exports through reflection, so this class still compiles
+   * and runs on Java 8.
+   */
+  static class ModuleExports {
+    static Set<String> javaSePackages() {
+      final Set<String> result = new HashSet<>();
+      exportedPackages().forEach((module, exported) -> {
+        if (module.startsWith("java.")) {
+          result.addAll(exported);
+        }
+      });
 
-    @Override
-    public Set<Entry<PackageNode, PackageNode>> entrySet() {
-      return sub.entrySet();
+      return Immutable.setOf(result.stream());
     }
 
-    @Override
-    public boolean containsKey(Object key) {
-      return sub.containsKey(key);
-    }
+    /**
+     * @return the packages each boot module exports to everyone; empty on Java 8.
+     */
+    static Map<String, Set<String>> exportedPackages() {
+      try {
+        final Class<?> layerClass       = Class.forName("java.lang.ModuleLayer");
+        final Class<?> moduleClass      = Class.forName("java.lang.Module");
+        final Class<?> descriptorClass  = Class.forName("java.lang.module.ModuleDescriptor");
+        final Class<?> exportsClass     = Class.forName("java.lang.module.ModuleDescriptor$Exports");
+
+        final Method getName        = moduleClass.getMethod("getName");
+        final Method getDescriptor  = moduleClass.getMethod("getDescriptor");
+        final Method exports        = descriptorClass.getMethod("exports");
+        final Method isQualified    = exportsClass.getMethod("isQualified");
+        final Method source         = exportsClass.getMethod("source");
+
+        final Object boot = layerClass.getMethod("boot").invoke(null);
+
+        final Map<String, Set<String>> result = new HashMap<>();
+        for (Object module : (Set<?>) layerClass.getMethod("modules").invoke(boot)) {
+          final String name = (String) getName.invoke(module);
+          if (name == null) continue;
+
+          final Set<String> exported = new HashSet<>();
+          for (Object export : (Set<?>) exports.invoke(getDescriptor.invoke(module))) {
+            if (!(Boolean) isQualified.invoke(export)) {
+              exported.add((String) source.invoke(export));
+            }
+          }
+
+          result.put(name, Immutable.setOf(exported.stream()));
+        }
 
-    @Override
-    public boolean equals(final Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (!(o instanceof PackageNode)) {
-        return false;
+        return Immutable.mapOf(result);
+      } catch (ReflectiveOperationException ignored) {
+        return Immutable.map();
       }
-      final PackageNode that = (PackageNode) o;
-      return name.equals(that.name);
-    }
-
-    public String toPatternGroup() {
-      final String dot = (depth != 0) ? "\\." : "";
-      final StringJoiner joiner = new StringJoiner("|", dot + name + "(?:", ")");
-      sub.keySet().stream()
-          .sorted(Comparator.comparing(PackageNode::getName))
-          .forEach(p -> joiner.add(p.toPatternGroup()));
-
-      return joiner.toString()
-          .replace("\\." + PACKAGE_NAME_SENTINEL, "")
-          .replace("(?:)", "");
-    }
-
-    @Override
-    public int hashCode() {
-      return name.hashCode();
-    }
-
-    @Override
-    public String toString() {
-      return name;
     }
   }
 }
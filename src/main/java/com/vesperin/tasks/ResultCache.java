@@ -0,0 +1,96 @@
+package com.vesperin.tasks;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes the values of {@link ValueTask}s by cache namespace (see
+ * {@link ValueTask#cacheNamespace()}) and content key. A cache outlives the runs of the {@link TaskQueue}s using it, so
+ * work done in one run is skipped by the next.
+ *
+ * @author Huascar Sanchez
+ */
+public class ResultCache {
+  private final ConcurrentMap<Key, Object> values = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits   = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+
+  <T> Optional<T> get(ValueTask<T> task, Object contentKey){
+    @SuppressWarnings("unchecked")
+    final T value = (T) values.get(new Key(task.cacheNamespace(), contentKey));
+
+    (value == null ? misses : hits).incrementAndGet();
+
+    return Optional.ofNullable(value);
+  }
+
+  <T> void put(ValueTask<T> task, Object contentKey, T value){
+    // null values are recomputed, rather than cached
+    if (value != null) {
+      values.put(new Key(task.cacheNamespace(), contentKey), value);
+    }
+  }
+
+  /**
+   * Drops the values cached for a content key; e.g., after its file changed.
+   *
+   * @param contentKey the content key to forget.
+   */
+  public void invalidate(Object contentKey){
+    values.keySet().removeIf(k -> k.contentKey.equals(contentKey));
+  }
+
+  /**
+   * Drops every cached value.
+   */
+  public void clear(){
+    values.clear();
+  }
+
+  /**
+   * @return the number of cached values.
+   */
+  public int size(){
+    return values.size();
+  }
+
+  /**
+   * @return the number of lookups that found a value.
+   */
+  public long getHitCount(){
+    return hits.get();
+  }
+
+  /**
+   * @return the number of lookups that found no value.
+   */
+  public long getMissCount(){
+    return misses.get();
+  }
+
+  private static final class Key {
+    final Object namespace;
+    final Object contentKey;
+
+    Key(Object namespace, Object contentKey){
+      this.namespace  = Objects.requireNonNull(namespace);
+      this.contentKey = Objects.requireNonNull(contentKey);
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+
+      final Key that = (Key) o;
+      return namespace.equals(that.namespace) && contentKey.equals(that.contentKey);
+    }
+
+    @Override public int hashCode() {
+      return 31 * namespace.hashCode() + contentKey.hashCode();
+    }
+  }
+}
@@ -5,6 +5,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Task define work unit to be run in paralell.
@@ -15,10 +18,40 @@ public abstract class Task {
   final List<Task> firstToFinish              = new ArrayList<>();
   final List<Task> firstToSuccessfullyFinish  = new ArrayList<>();
 
+  // reverse edges; guarded by this task's monitor
+  final List<Task> dependents                 = new ArrayList<>();
+  final List<Task> successfulDependents       = new ArrayList<>();
+
+  final AtomicInteger pendingPrerequisites    = new AtomicInteger(0);
+
   volatile TaskResult result;
 
   Exception thrown;
 
+  // instrumentation; recorded by the task queue (System.nanoTime values)
+  volatile long   enqueuedAt;
+  volatile long   runnableAt;
+  volatile long   startedAt;
+  volatile long   finishedAt;
+  volatile String worker;
+
+  // longest chain of run times ending at this task
+  volatile long criticalPathNanos;
+  volatile Task criticalPredecessor;
+
+  // cancellation; CANCELLED or TIMED_OUT once requested
+  final AtomicReference<TaskResult> cancellation = new AtomicReference<>();
+
+  volatile long    timeoutNanos;
+  volatile long    deadlineAt;
+  volatile boolean hasDeadline;
+
+  // guarded by this task's monitor
+  private Thread runner;
+
+  // set by the task queue running this task, if it memoizes values
+  volatile ResultCache cache;
+
 
   /**
    * Construct a new task object.
@@ -73,8 +106,83 @@ public abstract class Task {
     return this;
   }
 
+  /**
+   * Bounds how long this task may run once started. When the time is up
+   * the task is cancelled and finishes as {@link TaskResult#TIMED_OUT}.
+   *
+   * @param timeout the maximum run time; 0 means no timeout.
+   * @param unit the time unit of the timeout.
+   * @return self
+   */
+  public Task timeout(long timeout, TimeUnit unit){
+    if(timeout < 0) throw new IllegalArgumentException("negative timeout");
+
+    this.timeoutNanos = unit.toNanos(timeout);
+    return this;
+  }
+
+  /**
+   * Cancels this task. A task that has not started yet will not execute; a
+   * running task is interrupted and is expected to stop cooperatively, by
+   * checking {@link #isCancelled()} or honoring the interrupt. Either way,
+   * the task finishes as {@link TaskResult#CANCELLED}.
+   */
+  public void cancel(){
+    cancel(TaskResult.CANCELLED);
+  }
+
+  void cancel(TaskResult reason){
+    if(!cancellation.compareAndSet(null, reason)) return;
+
+    synchronized (this) {
+      if(runner != null){
+        runner.interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return true if this task has been cancelled or has timed out.
+   */
+  public final boolean isCancelled(){
+    return cancellation.get() != null;
+  }
+
+  /**
+   * Returns the time left before this task is cancelled, either by its own
+   * timeout or by the deadline of the queue running it. Long running tasks
+   * can hand this value down to blocking calls.
+   *
+   * @param unit the time unit of the returned value.
+   * @return the remaining time, or {@code Long.MAX_VALUE} if unbounded.
+   */
+  public final long getRemainingTime(TimeUnit unit){
+    if(!hasDeadline) return Long.MAX_VALUE;
+
+    final long remaining = deadlineAt - System.nanoTime();
+    return unit.convert(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+  }
+
   protected abstract TaskResult execute() throws Exception;
 
+  /**
+   * Returns the value produced by one of this task's prerequisites.
+   *
+   * @param prerequisite a prerequisite added by {@code after} or {@code afterSuccess}.
+   * @param <R> the type of the value.
+   * @return the value of the prerequisite.
+   * @throws IllegalArgumentException if the task is not a prerequisite of this task.
+   * @throws IllegalStateException if the prerequisite did not complete successfully.
+   */
+  protected final <R> R input(ValueTask<R> prerequisite){
+    if (!firstToFinish.contains(prerequisite)
+        && !firstToSuccessfullyFinish.contains(prerequisite)) {
+      throw new IllegalArgumentException(prerequisite + " is not a prerequisite of " + this);
+    }
+
+    return prerequisite.getValue();
+  }
+
   /**
    * @return true if this is an action task. A task queue imposes certain
    * limits on how many actions may be run concurrently.
@@ -118,17 +226,44 @@ public abstract class Task {
   public final void run(PrintWriter stdout, PrintWriter stderr){
     if(result != null) throw new IllegalStateException();
 
+    if(isCancelled()){
+      result = cancellation.get();
+      stdout.println(this + " " + result);
+      return;
+    }
+
+    synchronized (this) {
+      runner = Thread.currentThread();
+    }
+
+    TaskResult outcome;
     try {
       stdout.println("Running " + this);
-      result  = execute();
+      outcome = execute();
     } catch (Exception e){
-      stdout.println(name + " failed");
-      e.printStackTrace(stderr);
+      if(isCancelled()){
+        outcome = cancellation.get();
+      } else {
+        stdout.println(name + " failed");
+        e.printStackTrace(stderr);
+
+        thrown  = e;
+        outcome = TaskResult.ERROR;
+      }
+    } finally {
+      synchronized (this) {
+        runner = null;
+      }
+    }
 
-      thrown  = e;
-      result  = TaskResult.ERROR;
+    if(isCancelled()){
+      // drops the interrupt meant for this task
+      Thread.interrupted();
+      outcome = cancellation.get();
     }
 
+    result = outcome;
+
     if(TaskResult.SUCCESS != result){
       stdout.println(this + " " + result);
     }
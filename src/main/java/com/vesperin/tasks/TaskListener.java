@@ -0,0 +1,49 @@
+package com.vesperin.tasks;
+
+/**
+ * Receives the lifecycle events of tasks run by a {@link TaskQueue}. Events
+ * are delivered on the thread that triggers them (usually a worker), so
+ * implementations must be thread-safe and should return quickly.
+ *
+ * @author Huascar Sanchez
+ */
+public interface TaskListener {
+
+  /**
+   * Called once a task has been added to the queue.
+   *
+   * @param task the enqueued task.
+   */
+  default void taskEnqueued(Task task) {}
+
+  /**
+   * Called once all the prerequisites of a task have been satisfied.
+   *
+   * @param task the runnable task.
+   */
+  default void taskRunnable(Task task) {}
+
+  /**
+   * Called right before a worker executes a task.
+   *
+   * @param task the started task.
+   */
+  default void taskStarted(Task task) {}
+
+  /**
+   * Called right after a worker executed a task.
+   *
+   * @param task the finished task.
+   * @param metrics the timings and result of the task.
+   */
+  default void taskFinished(Task task, TaskMetrics metrics) {}
+
+  /**
+   * Called once a run of the queue has no more tasks to run. The queue's
+   * gauges and {@link TaskQueue#getCriticalPath() critical path} can be
+   * queried from here.
+   *
+   * @param queue the exhausted queue.
+   */
+  default void runFinished(TaskQueue queue) {}
+}
@@ -0,0 +1,96 @@
+package com.vesperin.tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the timings of a finished task.
+ *
+ * @author Huascar Sanchez
+ */
+public final class TaskMetrics {
+  private final Task        task;
+  private final TaskResult  result;
+  private final String      worker;
+  private final long        blockedNanos;
+  private final long        queuedNanos;
+  private final long        runNanos;
+  private final long        criticalPathNanos;
+
+  private TaskMetrics(Task task){
+    this.task               = task;
+    this.result             = task.result;
+    this.worker             = task.worker;
+    this.blockedNanos       = task.runnableAt - task.enqueuedAt;
+    this.queuedNanos        = task.startedAt - task.runnableAt;
+    this.runNanos           = task.finishedAt - task.startedAt;
+    this.criticalPathNanos  = task.criticalPathNanos;
+  }
+
+  static TaskMetrics of(Task task){
+    return new TaskMetrics(task);
+  }
+
+  /**
+   * @return the measured task.
+   */
+  public Task getTask() {
+    return task;
+  }
+
+  /**
+   * @return the result of the task.
+   */
+  public TaskResult getResult() {
+    return result;
+  }
+
+  /**
+   * @return the name of the worker thread that ran the task.
+   */
+  public String getWorker() {
+    return worker;
+  }
+
+  /**
+   * @param unit the time unit of the returned value.
+   * @return time spent waiting on prerequisites, since the task was enqueued.
+   */
+  public long getBlockedTime(TimeUnit unit) {
+    return unit.convert(blockedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param unit the time unit of the returned value.
+   * @return time spent runnable, waiting for a worker.
+   */
+  public long getQueuedTime(TimeUnit unit) {
+    return unit.convert(queuedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param unit the time unit of the returned value.
+   * @return time spent executing the task.
+   */
+  public long getRunTime(TimeUnit unit) {
+    return unit.convert(runNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param unit the time unit of the returned value.
+   * @return the longest sum of run times over a chain of prerequisites
+   *    ending at this task.
+   */
+  public long getCriticalPathTime(TimeUnit unit) {
+    return unit.convert(criticalPathNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override public String toString() {
+    return "TaskMetrics(task=" + task
+      + ", result=" + result
+      + ", worker=" + worker
+      + ", blocked=" + getBlockedTime(TimeUnit.MILLISECONDS) + "ms"
+      + ", queued=" + getQueuedTime(TimeUnit.MILLISECONDS) + "ms"
+      + ", run=" + getRunTime(TimeUnit.MILLISECONDS) + "ms"
+      + ")";
+  }
+}
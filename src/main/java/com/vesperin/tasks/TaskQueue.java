@@ -1,17 +1,36 @@
 package com.vesperin.tasks;
 
-import static com.vesperin.tasks.Threads.threadPerCpuExecutor;
+import static com.vesperin.tasks.Threads.scheduledExecutor;
+import static com.vesperin.tasks.Threads.workStealingExecutor;
 
 import com.vesperin.utils.Immutable;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -22,19 +41,32 @@ public class TaskQueue {
   private static final int FOREVER = 60 * 60 * 24 * 28; // four weeks
   private static final int DEFAULT_CONCURRENT_ACTIONS = 1;
 
+  // fires per-task timeouts; shared by all queues
+  private static final ScheduledExecutorService TIMEOUTS = scheduledExecutor("TaskQueue-timeouts");
+
   private PrintWriter stdout;
   private PrintWriter stderr;
 
-  private int runningTasks;
-  private int runningActions;
-  private int maxConcurrentActions;
+  private volatile int maxConcurrentActions;
+
+  // blocked tasks, mapped to their enqueue order
+  private final ConcurrentMap<Task, Long> tasks           = new ConcurrentHashMap<>();
+  private final AtomicLong                sequence        = new AtomicLong(0);
+
+  private final Queue<Task>               unscheduled     = new ConcurrentLinkedQueue<>();
+  private final Queue<Task>               failedTasks     = new ConcurrentLinkedQueue<>();
 
+  private final AtomicInteger             runningTasks    = new AtomicInteger(0);
+  private final AtomicInteger             runningActions  = new AtomicInteger(0);
 
-  private final LinkedList<Task>  tasks           = new LinkedList<>();
-  private final LinkedList<Task>  runnableActions = new LinkedList<>();
-  private final LinkedList<Task>  runnableTasks   = new LinkedList<>();
+  private final List<TaskListener>        listeners       = new CopyOnWriteArrayList<>();
 
-  private final List<Task>        failedTasks     = new ArrayList<>();
+  // memoizes the values of value tasks across runs; null if disabled
+  private volatile ResultCache            cache;
+
+  // the run in progress, if any, and the most recent one
+  private volatile Run                    current;
+  private volatile Run                    latest;
 
   /**
    * Construct a new TaskQueue object using default values.
@@ -65,10 +97,21 @@ public class TaskQueue {
 
 
   /**
-   * Adds a task to the queue.
+   * Adds a task to the queue. Tasks enqueued by a running task join
+   * the current run.
    */
-  public synchronized void enqueue(Task task) {
-    tasks.add(task);
+  public void enqueue(Task task) {
+    if (tasks.putIfAbsent(task, sequence.getAndIncrement()) == null) {
+      task.enqueuedAt = System.nanoTime();
+      unscheduled.add(task);
+
+      notifyListeners(l -> l.taskEnqueued(task));
+
+      final Run run = current;
+      if (run != null) {
+        scheduleTasks(run);
+      }
+    }
   }
 
   /**
@@ -77,28 +120,106 @@ public class TaskQueue {
    * @param tasks collection of tasks.
    */
   public void enqueueAll(Collection<Task> tasks) {
-    this.tasks.addAll(tasks);
+    tasks.forEach(this::enqueue);
   }
 
   /**
    * @return the first task in the queue.
    */
   public Task getFirst(){
-    return tasks.getFirst();
+    return blockedTasks().findFirst()
+      .orElseThrow(NoSuchElementException::new);
   }
 
   /**
    * @return the last task in the collection
    */
   public Task getLast(){
-    return tasks.getLast();
+    return blockedTasks().reduce((first, second) -> second)
+      .orElseThrow(NoSuchElementException::new);
   }
 
   /**
    * @return an immutable copy of the tasks kept by the queue.
    */
-  public synchronized List<Task> getTasks() {
-    return Immutable.listOf(tasks);
+  public List<Task> getTasks() {
+    return Immutable.listOf(blockedTasks());
+  }
+
+  /**
+   * Registers a listener of task lifecycle events.
+   *
+   * @param listener the listener to add.
+   */
+  public void addListener(TaskListener listener) {
+    listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Unregisters a listener of task lifecycle events.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeListener(TaskListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Memoizes the values of the {@link ValueTask}s run by this queue. A
+   * cache can be shared by several queues, and it is kept across runs.
+   *
+   * @param cache the result cache; null disables memoization.
+   */
+  public void useCache(ResultCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * @return the number of tasks waiting for a worker.
+   */
+  public int getRunnableCount() {
+    final Run run = latest;
+    return run == null ? 0 : Math.max(0, run.inFlight.get() - runningTasks.get());
+  }
+
+  /**
+   * @return the number of tasks being executed.
+   */
+  public int getRunningCount() {
+    return runningTasks.get();
+  }
+
+  /**
+   * @return the number of action tasks being executed.
+   */
+  public int getRunningActionsCount() {
+    return runningActions.get();
+  }
+
+  /**
+   * Returns the chain of prerequisites with the largest total run time
+   * among the tasks finished by the last run. This is the lower bound of
+   * that run's wall-clock time, no matter how many workers are available.
+   *
+   * @return the tasks in the critical path, in execution order.
+   */
+  public List<Task> getCriticalPath() {
+    final Run run = latest;
+    if (run == null) return Immutable.list();
+
+    final List<Task> path = new ArrayList<>();
+    for (Task each = run.criticalTask.get(); each != null; each = each.criticalPredecessor) {
+      path.add(each);
+    }
+
+    Collections.reverse(path);
+    return Immutable.listOf(path);
+  }
+
+  private Stream<Task> blockedTasks(){
+    return tasks.entrySet().stream()
+      .sorted(Comparator.comparing(Map.Entry::getValue))
+      .map(Map.Entry::getKey);
   }
 
   private void calibrateMaxConcurrentActions(){
@@ -127,120 +248,266 @@ public class TaskQueue {
   }
 
   /**
-   * Run all the tasks kept this queue.
+   * Run all the tasks kept this queue. Runnable tasks are spread over
+   * per-worker deques and idle workers steal from busy ones; action
+   * tasks are throttled by a semaphore instead of the queue's monitor.
    */
   public void runTasks() {
-    promoteBlockedTasks();
-
-    final AtomicInteger counter = new AtomicInteger(0);
+    runTasks(FOREVER, TimeUnit.SECONDS, false);
+  }
 
-    ExecutorService runners = threadPerCpuExecutor(stderr, "TaskQueue");
+  /**
+   * Run all the tasks kept by this queue, giving up once the deadline has
+   * passed. At that point, running tasks are cancelled and every task
+   * still reached by the run finishes as {@link TaskResult#TIMED_OUT}
+   * without being executed. Tasks that ignore their cancellation finish in
+   * the background; this method does not wait for them. Running tasks can
+   * read the time left through {@link Task#getRemainingTime(TimeUnit)}.
+   *
+   * @param timeout the maximum time to wait for the run to complete.
+   * @param unit the time unit of the timeout.
+   * @return true if the run completed before the deadline; false otherwise.
+   */
+  public boolean runTasks(long timeout, TimeUnit unit) {
+    return runTasks(timeout, unit, true);
+  }
 
-    for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
-      runners.execute(() -> {
-        while (runOneTask()) {
-          // running one task at a time
-          counter.getAndIncrement();
-        }
-      });
-    }
+  private boolean runTasks(long timeout, TimeUnit unit, boolean bounded) {
+    final Run run = new Run(
+      workStealingExecutor(stderr, "TaskQueue"),
+      Math.max(1, maxConcurrentActions),
+      bounded,
+      System.nanoTime() + unit.toNanos(timeout)
+    );
 
-    runners.shutdown();
+    latest  = run;
+    current = run;
 
     try {
-      runners.awaitTermination(FOREVER, TimeUnit.SECONDS);
+      scheduleTasks(run);
+      finishOne(run);
+
+      final boolean completed = run.exhausted.await(timeout, unit);
 
-      stdout.println(String.format("Executed tasks: %d", counter.get()));
+      // tasks enqueued from here on wait for the next run
+      current = null;
+
+      if (!completed) {
+        run.cancel(TaskResult.TIMED_OUT);
+
+        stdout.println(String.format("Run timed out after %d %s", timeout, unit));
+      }
+
+      stdout.println(String.format("Executed tasks: %d", run.executed.get()));
+
+      notifyListeners(l -> l.runFinished(this));
+
+      return completed;
 
     } catch (InterruptedException e) {
       stdout.println("failed task: " + e.getMessage());
       e.printStackTrace(stderr);
       throw new AssertionError();
+    } finally {
+      current = null;
     }
   }
 
-  private boolean runOneTask() {
-    Task task = takeTask();
-    if (task == null) {
-      return false;
+  /**
+   * Cancels the run in progress. Running tasks are interrupted, and every
+   * task still reached by the run finishes as {@link TaskResult#CANCELLED}
+   * without being executed.
+   */
+  public void cancelAll() {
+    final Run run = current;
+    if (run != null) {
+      run.cancel(TaskResult.CANCELLED);
     }
+  }
 
+  private void runOneTask(Run run, Task task) {
     String threadName = Thread.currentThread().getName();
 
+    final TaskResult cancellation = run.cancellation;
+    if (cancellation != null) {
+      task.cancel(cancellation);
+    }
+
+    runningTasks.incrementAndGet();
+    if (task.isAction()) {
+      runningActions.incrementAndGet();
+    }
+
+    task.worker = threadName;
+    task.cache  = cache;
+    notifyListeners(l -> l.taskStarted(task));
+
     Thread.currentThread().setName(task.toString());
 
+    ScheduledFuture<?> timeout = null;
     try {
+      task.startedAt = System.nanoTime();
+
+      // the run's deadline is enforced by runTasks; only earlier ones need a timer
+      final long taskDeadlineAt = task.startedAt + task.timeoutNanos;
+      if (task.timeoutNanos > 0 && (!run.bounded || taskDeadlineAt - run.deadlineAt < 0)) {
+        task.deadlineAt  = taskDeadlineAt;
+        task.hasDeadline = true;
+
+        timeout = TIMEOUTS.schedule(
+          () -> task.cancel(TaskResult.TIMED_OUT), task.timeoutNanos, TimeUnit.NANOSECONDS
+        );
+      } else if (run.bounded) {
+        task.deadlineAt  = run.deadlineAt;
+        task.hasDeadline = true;
+      }
+
       task.run(stdout, stderr);
     } finally {
-      doneTask(task);
+      task.finishedAt = System.nanoTime();
+
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+
       Thread.currentThread().setName(threadName);
       stdout.flush();
       stderr.flush();
-    }
 
-    return true;
+      runningTasks.decrementAndGet();
+      if (task.isAction()) {
+        runningActions.decrementAndGet();
+      }
+
+      doneTask(run, task);
+    }
   }
 
   /**
-   * Takes the next task to process conditioned by
-   * the max concurrent actions handled by this queue.
+   * Hands a runnable task to the workers, conditioned by the max
+   * concurrent actions handled by this queue. The task already holds
+   * its place in the run; see {@link Run#join()}.
    *
-   * @return next task
+   * @param task the runnable task
    */
-  private synchronized Task takeTask() {
-    while (true) {
-      Task task = null;
-      if (runningActions < maxConcurrentActions) {
-        task = runnableActions.poll();
-      }
-      if (task == null) {
-        task = runnableTasks.poll();
-      }
+  private void submit(Run run, Task task) {
+    run.active.add(task);
 
-      if (task != null) {
-        runningTasks++;
-        if (task.isAction()) {
-          runningActions++;
-        }
-        return task;
-      }
+    if (task.isAction()) {
+      run.runnableActions.offer(task);
+      drainActions(run);
+    } else {
+      execute(run, task);
+    }
+  }
 
-      if (isExhausted()) {
-        return null;
+  private void drainActions(Run run) {
+    while (!run.runnableActions.isEmpty() && run.actionPermits.tryAcquire()) {
+      final Task action = run.runnableActions.poll();
+      if (action == null) {
+        run.actionPermits.release();
+        continue;
       }
 
-      try {
-        wait();
-      } catch (InterruptedException e) {
-        throw new AssertionError();
+      execute(run, action);
+    }
+  }
+
+  private void execute(Run run, Task task) {
+    try {
+      run.runners.execute(() -> runOneTask(run, task));
+    } catch (RejectedExecutionException e) {
+      // the workers are gone; the task goes back to the queue, not lost
+      run.active.remove(task);
+      tasks.putIfAbsent(task, sequence.getAndIncrement());
+      unscheduled.add(task);
+
+      if (task.isAction()) {
+        run.actionPermits.release();
       }
+
+      finishOne(run);
     }
   }
 
-  private synchronized void doneTask(Task task) {
+  private void doneTask(Run run, Task task) {
+    run.executed.incrementAndGet();
+    run.active.remove(task);
+
+    updateCriticalPath(run, task);
+
+    if (!listeners.isEmpty()) {
+      final TaskMetrics metrics = TaskMetrics.of(task);
+      notifyListeners(l -> l.taskFinished(task, metrics));
+    }
+
     if (task.result != TaskResult.SUCCESS) {
       failedTasks.add(task);
     }
 
-    runningTasks--;
-
     if (task.isAction()) {
-      runningActions--;
+      run.actionPermits.release();
+      drainActions(run);
+    }
+
+    final Task[] dependents;
+    final Task[] successfulDependents;
+    synchronized (task) {
+      dependents           = task.dependents.toArray(new Task[0]);
+      successfulDependents = task.successfulDependents.toArray(new Task[0]);
     }
 
-    promoteBlockedTasks();
+    for (Task each : dependents) {
+      unblock(run, each);
+    }
 
-    if (isExhausted()) {
-      notifyAll();
+    if (task.result == TaskResult.SUCCESS) {
+      for (Task each : successfulDependents) {
+        unblock(run, each);
+      }
     }
+
+    finishOne(run);
   }
 
   /**
-   * Returns true if there are no tasks to run and no tasks currently running.
+   * Extends the longest chain of prerequisites with the given task. Its
+   * prerequisites finished before it became runnable, so their chains
+   * are already known.
    */
-  private boolean isExhausted() {
-    return runnableTasks.isEmpty()
-      && runnableActions.isEmpty() && runningTasks == 0;
+  private static void updateCriticalPath(Run run, Task task) {
+    Task longest = null;
+
+    for (Task each : task.firstToFinish) {
+      if (longest == null || each.criticalPathNanos > longest.criticalPathNanos) {
+        longest = each;
+      }
+    }
+
+    for (Task each : task.firstToSuccessfullyFinish) {
+      if (longest == null || each.criticalPathNanos > longest.criticalPathNanos) {
+        longest = each;
+      }
+    }
+
+    final long runNanos = task.finishedAt - task.startedAt;
+
+    task.criticalPredecessor  = longest;
+    task.criticalPathNanos    = runNanos + (longest == null ? 0 : longest.criticalPathNanos);
+
+    run.criticalTask.accumulateAndGet(task, (current, candidate) ->
+      (current == null || candidate.criticalPathNanos > current.criticalPathNanos)
+        ? candidate
+        : current
+    );
+  }
+
+  private static void finishOne(Run run) {
+    if (run.inFlight.decrementAndGet() == 0) {
+      run.exhausted.countDown();
+      // a run that gave up on its deadline is shut down by its last task
+      run.runners.shutdown();
+    }
   }
 
   /**
@@ -249,7 +516,7 @@ public class TaskQueue {
    */
   public void printTasks() {
     int i = 0;
-    for (Task task : tasks) {
+    for (Task task : getTasks()) {
       StringBuilder message = new StringBuilder()
         .append("Task ").append(i++).append(": ").append(task);
 
@@ -278,7 +545,7 @@ public class TaskQueue {
       }
     }
 
-    for (Task task : tasks) {
+    for (Task task : getTasks()) {
       StringBuilder message = new StringBuilder()
         .append("Failed to execute task: ").append(task);
       for (Task blocker : task.firstToFinish) {
@@ -297,23 +564,127 @@ public class TaskQueue {
     }
   }
 
+  /**
+   * Wires the reverse edges of every newly enqueued task and submits those
+   * with no pending prerequisites. Finishing a task then only touches its
+   * dependents, rather than rescanning every blocked task.
+   */
+  private void scheduleTasks(Run run) {
+    Task each;
+    while ((each = unscheduled.poll()) != null) {
+      // holds the task back until all of its edges are wired
+      each.pendingPrerequisites.set(1);
+
+      for (Task prerequisite : each.firstToFinish) {
+        synchronized (prerequisite) {
+          if (prerequisite.result == null) {
+            prerequisite.dependents.add(each);
+            each.pendingPrerequisites.incrementAndGet();
+          }
+        }
+      }
 
-  private synchronized void promoteBlockedTasks() {
-    for (Iterator<Task> it = tasks.iterator(); it.hasNext(); ) {
-      final Task potentiallyUnblocked = it.next();
+      for (Task prerequisite : each.firstToSuccessfullyFinish) {
+        synchronized (prerequisite) {
+          if (prerequisite.result == null) {
+            prerequisite.successfulDependents.add(each);
+            each.pendingPrerequisites.incrementAndGet();
+          } else if (prerequisite.result != TaskResult.SUCCESS) {
+            // never satisfied; the task stays blocked
+            each.pendingPrerequisites.incrementAndGet();
+          }
+        }
+      }
 
-      if (potentiallyUnblocked.isRunnable()) {
-        it.remove();
+      unblock(run, each);
+    }
+  }
 
-        if (potentiallyUnblocked.isAction()) {
-          runnableActions.add(potentiallyUnblocked);
-        } else {
-          runnableTasks.add(potentiallyUnblocked);
-        }
+  /**
+   * Delivers an event to every listener. A failing listener is reported,
+   * but neither stops the other listeners nor disturbs the run.
+   */
+  private void notifyListeners(Consumer<TaskListener> event) {
+    for (TaskListener each : listeners) {
+      try {
+        event.accept(each);
+      } catch (RuntimeException e) {
+        stderr.println("Unexpected failure from listener " + each + ": " + e.getMessage());
+      }
+    }
+  }
 
-        notifyAll();
+  private void unblock(Run run, Task task) {
+    if (task.pendingPrerequisites.decrementAndGet() == 0) {
+      if (!run.join()) {
+        // the run is over and its workers are shut down; keep the task
+        // blocked until the next run schedules it again
+        unscheduled.add(task);
+        return;
       }
+
+      tasks.remove(task);
+
+      task.runnableAt = System.nanoTime();
+      notifyListeners(l -> l.taskRunnable(task));
+
+      submit(run, task);
     }
   }
 
+  /**
+   * State of a single call to {@link #runTasks(long, TimeUnit)}. Tasks
+   * keep a reference to the run that submitted them, so stragglers from
+   * a run that gave up cannot disturb the next one.
+   */
+  private static class Run {
+    final ExecutorService       runners;
+    final Semaphore             actionPermits;
+    final boolean               bounded;
+    final long                  deadlineAt;
+
+    final Queue<Task>           runnableActions = new ConcurrentLinkedQueue<>();
+    // tasks submitted to the workers but not yet done
+    final Set<Task>             active          = ConcurrentHashMap.newKeySet();
+    final AtomicInteger         inFlight        = new AtomicInteger(1); // held open while scheduling
+    final AtomicInteger         executed        = new AtomicInteger(0);
+    final AtomicReference<Task> criticalTask    = new AtomicReference<>();
+    final CountDownLatch        exhausted       = new CountDownLatch(1);
+
+    // CANCELLED or TIMED_OUT once the run gives up
+    volatile TaskResult         cancellation;
+
+    Run(ExecutorService runners, int maxConcurrentActions, boolean bounded, long deadlineAt) {
+      this.runners        = runners;
+      this.actionPermits  = new Semaphore(maxConcurrentActions);
+      this.bounded        = bounded;
+      this.deadlineAt     = deadlineAt;
+    }
+
+    /**
+     * Takes a place in this run for a task about to be submitted.
+     *
+     * @return false if the run is over, which happens once no task is
+     *    in flight; a finished run never takes new tasks.
+     */
+    boolean join() {
+      int n;
+      do {
+        n = inFlight.get();
+        if (n == 0) return false;
+      } while (!inFlight.compareAndSet(n, n + 1));
+
+      return true;
+    }
+
+    void cancel(TaskResult reason) {
+      if (cancellation == null) {
+        cancellation = reason;
+      }
+
+      for (Task each : active) {
+        each.cancel(reason);
+      }
+    }
+  }
 }
@@ -7,5 +7,7 @@ public enum TaskResult {
   UNSUPPORTED,
   ERROR,
   SUCCESS,
-  SKIPPED
+  SKIPPED,
+  CANCELLED,
+  TIMED_OUT
 }
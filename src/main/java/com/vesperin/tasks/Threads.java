@@ -3,7 +3,11 @@ package com.vesperin.tasks;
 import java.io.PrintWriter;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +31,55 @@ public class Threads {
         stderr, process, Runtime.getRuntime().availableProcessors());
   }
 
+  /**
+   * Creates a work-stealing executor with one worker per cpu. Each worker
+   * keeps its own deque of tasks; tasks submitted by a worker are pushed
+   * onto its deque, and idle workers steal from the others.
+   *
+   * @param stderr where unexpected failures are reported.
+   * @param name the prefix of the workers' names.
+   * @return a new executor service.
+   */
+  public static ExecutorService workStealingExecutor(PrintWriter stderr, String name) {
+    final String process = Optional.ofNullable(name)
+        .filter(n -> !n.isEmpty())
+        .orElseThrow(IllegalArgumentException::new);
+
+    final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName(process + "-" + thread.getPoolIndex());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    return new ForkJoinPool(
+        Runtime.getRuntime().availableProcessors(),
+        threadFactory,
+        (thread, throwable) -> stderr.println(
+            "Unexpected failure from " + thread.getName() + ": " + throwable.getMessage()),
+        true /* FIFO order for tasks that are never joined */
+    );
+  }
+
+  /**
+   * Creates a single-threaded executor for delayed actions, such as
+   * timeouts. Cancelled actions are removed right away, so short-lived
+   * timeouts do not pile up in its queue.
+   *
+   * @param name the name of the worker.
+   * @return a new scheduled executor service.
+   */
+  public static ScheduledExecutorService scheduledExecutor(String name) {
+    final String process = Optional.ofNullable(name)
+        .filter(n -> !n.isEmpty())
+        .orElseThrow(IllegalArgumentException::new);
+
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+        1, daemonThreadFactory(process));
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
   private static ExecutorService fixedThreadsExecutor(final PrintWriter stderr, String name, int count) {
     ThreadFactory threadFactory = daemonThreadFactory(name);
 
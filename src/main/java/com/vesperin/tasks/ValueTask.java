@@ -0,0 +1,115 @@
+package com.vesperin.tasks;
+
+import java.util.Optional;
+
+/**
+ * A task that produces a value. Dependent tasks read that value through
+ * {@link Task#input(ValueTask)}, rather than sharing it via side channels.
+ *
+ * <p>A value task may describe its inputs by a content key. When it is run
+ * by a {@link TaskQueue} that uses a {@link ResultCache}, a value computed
+ * earlier for an equal key, by a task in the same cache namespace, is
+ * reused instead of being computed again.
+ *
+ * @param <T> the type of the produced value.
+ * @author Huascar Sanchez
+ */
+public abstract class ValueTask<T> extends Task {
+  private volatile T        value;
+  private volatile boolean  cached;
+  private volatile boolean  released;
+
+  /**
+   * Construct a new value task.
+   *
+   * @param name the name of the task.
+   */
+  public ValueTask(String name){
+    super(name);
+  }
+
+  /**
+   * Computes the value of this task. Returning normally means success.
+   *
+   * @return the computed value.
+   * @throws Exception if the value cannot be computed.
+   */
+  protected abstract T compute() throws Exception;
+
+  /**
+   * Returns the key that identifies the inputs of this task; e.g., the
+   * contents of a parsed file. Tasks with no key are never memoized.
+   *
+   * @return the content key, if any.
+   */
+  protected Optional<?> contentKey(){
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the namespace of this task's cached values; only tasks in the
+   * same namespace share values for equal content keys. Defaults to this
+   * task's class, so tasks sharing a class (e.g., anonymous tasks built by
+   * the same factory for different analyses) must override it.
+   *
+   * @return the cache namespace, such as an analysis id.
+   */
+  protected Object cacheNamespace(){
+    return getClass();
+  }
+
+  @Override protected final TaskResult execute() throws Exception {
+    final ResultCache resultCache = cache;
+    final Optional<?> key         = resultCache == null ? Optional.empty() : contentKey();
+
+    if (key.isPresent()) {
+      final Optional<T> hit = resultCache.get(this, key.get());
+      if (hit.isPresent()) {
+        value  = hit.get();
+        cached = true;
+        return TaskResult.SUCCESS;
+      }
+    }
+
+    value = compute();
+
+    if (key.isPresent() && !isCancelled()) {
+      resultCache.put(this, key.get(), value);
+    }
+
+    return TaskResult.SUCCESS;
+  }
+
+  /**
+   * @return true if the value was taken from a {@link ResultCache}.
+   */
+  public final boolean isCached(){
+    return cached;
+  }
+
+  /**
+   * Drops the value of this task, so it can be garbage collected once all
+   * of its dependents are done with it.
+   */
+  public final void release(){
+    released = true;
+    value    = null;
+  }
+
+  /**
+   * @return the value produced by this task.
+   * @throws IllegalStateException if this task has not completed successfully,
+   *    or if its value was released.
+   */
+  public final T getValue(){
+    if (result != TaskResult.SUCCESS) {
+      throw new IllegalStateException(this + " has no value (" + result + ")");
+    }
+
+    if (released) {
+      throw new IllegalStateException(this + " released its value");
+    }
+
+    return value;
+  }
+}
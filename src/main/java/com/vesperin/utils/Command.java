@@ -8,9 +8,11 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -23,6 +25,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 
 /**
@@ -30,8 +33,16 @@ import java.util.concurrent.TimeoutException;
  */
 public class Command {
 
+  // a daemon, so pending timeouts do not keep the JVM alive
   private static final ScheduledExecutorService timer = Executors
-    .newSingleThreadScheduledExecutor();
+    .newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "Command-timeout");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+  // output lines kept for the message of a failed command
+  private static final int DEFAULT_TAIL_LINES = 50;
 
   private List<String>  args;
 
@@ -39,6 +50,11 @@ public class Command {
   private final File workingDirectory;
   private final boolean permitNonZeroExitStatus;
 
+  private final boolean echo;
+  private final int     maxCapturedLines;
+  private final long    maxCapturedChars;
+  private final int     tailLines;
+
 
   private volatile Process  process;
   private volatile boolean  destroyed;
@@ -65,6 +81,11 @@ public class Command {
 
     this.workingDirectory = null;
     this.permitNonZeroExitStatus = false;
+
+    this.echo = true;
+    this.maxCapturedLines = Integer.MAX_VALUE;
+    this.maxCapturedChars = Long.MAX_VALUE;
+    this.tailLines = DEFAULT_TAIL_LINES;
   }
 
   /**
@@ -83,6 +104,11 @@ public class Command {
     this.workingDirectory = nonNullBuilder.workingDirectory;
     this.permitNonZeroExitStatus = nonNullBuilder.permitNonZeroExitStatus;
 
+    this.echo = nonNullBuilder.echo;
+    this.maxCapturedLines = nonNullBuilder.maxCapturedLines;
+    this.maxCapturedChars = nonNullBuilder.maxCapturedChars;
+    this.tailLines = nonNullBuilder.tailLines;
+
     // checks if we maxed out the number of budgeted arguments
     if (nonNullBuilder.maxCommandLength != -1) {
       final String string = toString();
@@ -152,7 +178,22 @@ public class Command {
   }
 
   /**
-   * Returns the output returned by process.
+   * Waits for the started process to exit.
+   *
+   * @return the exit value of the process.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public int waitFor() throws InterruptedException {
+    if (!isStarted()) {
+      throw new IllegalStateException("Not started!");
+    }
+
+    return process.waitFor();
+  }
+
+  /**
+   * Returns the output returned by process. Only the first lines are kept
+   * if the output exceeds the command's capture limit.
    *
    * @return the output on terminal.
    *
@@ -161,30 +202,76 @@ public class Command {
    */
   public List<String> gatherOutput()
     throws IOException, InterruptedException {
-    if (!isStarted()) {
-      throw new IllegalStateException("Not started!");
-    }
-
-    try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8))) {
-      final List<String> outputLines = new ArrayList<>();
 
-      String outputLine;
-      while ((outputLine = bufferedReader.readLine()) != null) {
+    final List<String> outputLines = new ArrayList<>();
+    final long[] capturedChars = {0};
 
-        stdout.println(outputLine);
+    gatherOutput(line -> {
+      if (outputLines.size() < maxCapturedLines
+        && capturedChars[0] + line.length() <= maxCapturedChars) {
 
-        outputLines.add(outputLine);
+        outputLines.add(line);
+        capturedChars[0] += line.length();
       }
+    });
 
-      int exitValue = process.waitFor();
+    return outputLines;
+  }
 
-      if (exitValue != 0 && !permitNonZeroExitStatus) {
-        throw new CommandFailedException(args, outputLines);
+  /**
+   * Streams the output of the process to a sink, line by line, as it is
+   * produced. Nothing is accumulated, except for the last lines, which
+   * are reported if the command fails.
+   *
+   * @param sink consumes each output line.
+   * @return the exit value of the process.
+   *
+   * @throws IOException unexpected behavior occurred.
+   * @throws InterruptedException unexpected behavior occurred.
+   */
+  public int gatherOutput(Consumer<String> sink)
+    throws IOException, InterruptedException {
+
+    final Deque<String> tail = new ArrayDeque<>();
+    final int exitValue = streamOutput(line -> {
+      if (tailLines > 0) {
+        if (tail.size() == tailLines) tail.removeFirst();
+        tail.addLast(line);
       }
 
-      return outputLines;
+      sink.accept(line);
+    });
 
+    if (exitValue != 0 && !permitNonZeroExitStatus) {
+      throw new CommandFailedException(args, new ArrayList<>(tail));
     }
+
+    return exitValue;
+  }
+
+  /**
+   * Reads the output of the started process until it ends, echoing it if
+   * this command echoes its output, and waits for the process to exit.
+   *
+   * @return the exit value of the process.
+   */
+  int streamOutput(Consumer<String> sink) throws IOException, InterruptedException {
+    if (!isStarted()) {
+      throw new IllegalStateException("Not started!");
+    }
+
+    try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8))) {
+      String outputLine;
+      while ((outputLine = bufferedReader.readLine()) != null) {
+        if (echo) {
+          stdout.println(outputLine);
+        }
+
+        sink.accept(outputLine);
+      }
+    }
+
+    return process.waitFor();
   }
 
 
@@ -203,6 +290,24 @@ public class Command {
   }
 
 
+  /**
+   * Executes a command, streaming its output to a sink.
+   *
+   * @param sink consumes each output line.
+   * @return the exit value of the process.
+   */
+  public int execute(Consumer<String> sink) {
+    try {
+      start();
+      return gatherOutput(sink);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to execute process: " + args, e);
+    } catch (InterruptedException e) {
+      throw new RuntimeException("Interrupted while executing process: " + args, e);
+    }
+  }
+
+
   /**
    * Executes a command with a specified timeout. If the process does not
    * complete normally before the timeout has elapsed, it will be destroyed.
@@ -256,7 +361,11 @@ public class Command {
       @Override protected void onTimeout(Process process) {
         // send a quit signal immediately
         stdout.println("sending quit signal to command " + Command.this);
-        sendQuitSignal(process);
+        try {
+          sendQuitSignal(process);
+        } catch (RuntimeException e) {
+          stderr.println("couldn't send quit signal to " + Command.this + ": " + e.getMessage());
+        }
 
         // hard kill in 2 seconds
         timeoutNanoTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
@@ -272,7 +381,7 @@ public class Command {
 
   private void sendQuitSignal(Process process) {
     final List<String> args = new ArrayList<>(
-      Arrays.asList("kill", "-3", Integer.toString(getPid(process)))
+      Arrays.asList("kill", "-3", Long.toString(getPid(process)))
     );
 
     new Command(args).execute();
@@ -281,7 +390,16 @@ public class Command {
   /**
    * Return the PID of this command's process.
    */
-  private int getPid(Process process) {
+  private long getPid(Process process) {
+    try {
+      // Process#pid() exists since Java 9, which denies access to the pid field
+      return (Long) Process.class.getMethod("pid").invoke(process);
+    } catch (NoSuchMethodException java8) {
+      // falls back to the pid field
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+
     try {
       // See org.openqa.selenium.ProcessUtils.getProcessId()
       Field field = process.getClass().getDeclaredField("pid");
@@ -324,6 +442,11 @@ public class Command {
     private boolean     permitNonZeroExitStatus;
     private int         maxCommandLength;
 
+    private boolean     echo;
+    private int         maxCapturedLines;
+    private long        maxCapturedChars;
+    private int         tailLines;
+
     private final Set<String> seenBefore;
     private final Set<String> uncheckedSet;
 
@@ -343,6 +466,11 @@ public class Command {
 
       this.maxCommandLength = Integer.MAX_VALUE;
 
+      this.echo = true;
+      this.maxCapturedLines = Integer.MAX_VALUE;
+      this.maxCapturedChars = Long.MAX_VALUE;
+      this.tailLines = DEFAULT_TAIL_LINES;
+
       this.args = new ArrayList<>();
       this.env = new LinkedHashMap<>();
 
@@ -503,6 +631,51 @@ public class Command {
       return this;
     }
 
+    /**
+     * Sets whether the command's output is echoed to stdout. On by default.
+     *
+     * @param echo true if the output is echoed.
+     * @return self
+     */
+    public Builder echo(boolean echo) {
+      this.echo = echo;
+      return this;
+    }
+
+    /**
+     * Limits the output kept by {@link Command#gatherOutput()}; the lines
+     * after the limit are still read, but dropped.
+     *
+     * @param maxLines the maximum number of kept lines.
+     * @param maxChars the maximum number of kept characters.
+     * @return self
+     */
+    public Builder captureLimit(int maxLines, long maxChars) {
+      if (maxLines < 0 || maxChars < 0) {
+        throw new IllegalArgumentException("Negative capture limit");
+      }
+
+      this.maxCapturedLines = maxLines;
+      this.maxCapturedChars = maxChars;
+      return this;
+    }
+
+    /**
+     * Sets the number of trailing output lines reported when the command
+     * fails.
+     *
+     * @param tailLines the number of kept lines.
+     * @return self
+     */
+    public Builder tailLines(int tailLines) {
+      if (tailLines < 0) {
+        throw new IllegalArgumentException("tailLines < 0");
+      }
+
+      this.tailLines = tailLines;
+      return this;
+    }
+
     /**
      * @return the built command.
      */
@@ -553,7 +726,7 @@ public class Command {
      * Construct a new CommandFailedException object.
      *
      * @param args list of command's args.
-     * @param outputLines list of output lines displayed on terminal.
+     * @param outputLines the last output lines displayed on terminal.
      */
     CommandFailedException(List<String> args, List<String> outputLines) {
       this(formatMessage(args, outputLines));
@@ -598,7 +771,7 @@ public class Command {
     final void schedule() {
       timer.schedule(
         this,
-        System.nanoTime() - timeoutNanoTime,
+        timeoutNanoTime - System.nanoTime(),
         TimeUnit.NANOSECONDS
       );
     }
@@ -617,7 +790,7 @@ public class Command {
         // reschedule the kill operation
         timer.schedule(
           this,
-          System.nanoTime() - timeoutNanoTime,
+          timeoutNanoTime - System.nanoTime(),
           TimeUnit.NANOSECONDS
         );
       }
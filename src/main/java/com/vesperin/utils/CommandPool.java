@@ -0,0 +1,244 @@
+package com.vesperin.utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs many {@link Command}s concurrently, at most {@code concurrency} at a
+ * time. The output of a command is read as it is produced (and echoed if
+ * the command echoes it): each line is handed to an optional consumer, and
+ * only the last few lines are kept. Each run is reported as an
+ * {@link Outcome}, with its exit code, latency and the time it waited for
+ * a free slot.
+ *
+ * @author Huascar Sanchez
+ */
+public class CommandPool implements AutoCloseable {
+  private static final int DEFAULT_TAIL_LINES = 20;
+
+  private final ExecutorService executor;
+  private final int             tailLines;
+
+  /**
+   * Construct a new CommandPool.
+   *
+   * @param concurrency the maximum number of commands running at once.
+   */
+  public CommandPool(int concurrency){
+    this(concurrency, DEFAULT_TAIL_LINES);
+  }
+
+  /**
+   * Construct a new CommandPool.
+   *
+   * @param concurrency the maximum number of commands running at once.
+   * @param tailLines the number of trailing output lines kept per command.
+   */
+  public CommandPool(int concurrency, int tailLines){
+    if(concurrency < 1) throw new IllegalArgumentException("concurrency < 1");
+    if(tailLines < 0)   throw new IllegalArgumentException("tailLines < 0");
+
+    final AtomicInteger count = new AtomicInteger(0);
+    this.executor   = Executors.newFixedThreadPool(concurrency, r -> {
+      final Thread thread = new Thread(r, "CommandPool-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    this.tailLines  = tailLines;
+  }
+
+  /**
+   * Queues a command; its output is only kept in its outcome's tail.
+   *
+   * @param command the command to run; it must not have been started.
+   * @return the future outcome of the command.
+   */
+  public Future<Outcome> submit(Command command){
+    return submit(command, line -> {});
+  }
+
+  /**
+   * Queues a command.
+   *
+   * @param command the command to run; it must not have been started.
+   * @param lineConsumer consumes each output line, on the thread running the command.
+   * @return the future outcome of the command.
+   */
+  public Future<Outcome> submit(Command command, Consumer<String> lineConsumer){
+    Objects.requireNonNull(command);
+    Objects.requireNonNull(lineConsumer);
+
+    final long queuedAt = System.nanoTime();
+    return executor.submit(() -> run(command, lineConsumer, queuedAt));
+  }
+
+  /**
+   * Runs some commands and waits for all of them to finish.
+   *
+   * @param commands the commands to run.
+   * @return the outcomes, in the order of the given commands.
+   */
+  public List<Outcome> runAll(Collection<Command> commands){
+    final List<Future<Outcome>> futures = new ArrayList<>();
+    for(Command each : commands){
+      futures.add(submit(each));
+    }
+
+    final List<Outcome> outcomes = new ArrayList<>();
+    try {
+      for(Future<Outcome> each : futures){
+        outcomes.add(each.get());
+      }
+    } catch (InterruptedException e){
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for commands", e);
+    } catch (ExecutionException e){
+      throw new RuntimeException(e.getCause());
+    }
+
+    return Immutable.listOf(outcomes);
+  }
+
+  private Outcome run(Command command, Consumer<String> lineConsumer, long queuedAt){
+    final long      startedAt = System.nanoTime();
+    final Deque<String> tail  = new ArrayDeque<>();
+
+    int exitCode    = -1;
+    int[] lineCount = {0};
+    Exception error = null;
+
+    try {
+      command.start();
+
+      exitCode = command.streamOutput(line -> {
+        lineCount[0]++;
+        lineConsumer.accept(line);
+
+        if(tailLines > 0){
+          if(tail.size() == tailLines) tail.removeFirst();
+          tail.addLast(line);
+        }
+      });
+    } catch (InterruptedException e){
+      Thread.currentThread().interrupt();
+      error = e;
+    } catch (IOException | RuntimeException e){
+      error = e;
+    }
+
+    return new Outcome(
+      command.toString(), exitCode, startedAt - queuedAt, System.nanoTime() - startedAt,
+      lineCount[0], Immutable.listOf(tail), error
+    );
+  }
+
+  /**
+   * Stops accepting commands; queued commands still run.
+   */
+  @Override public void close(){
+    executor.shutdown();
+  }
+
+  /**
+   * The result of running one command.
+   */
+  public static class Outcome {
+    private final String        command;
+    private final int           exitCode;
+    private final long          queueWaitNanos;
+    private final long          latencyNanos;
+    private final int           lineCount;
+    private final List<String>  tail;
+    private final Exception     error;
+
+    Outcome(String command, int exitCode, long queueWaitNanos, long latencyNanos,
+            int lineCount, List<String> tail, Exception error){
+
+      this.command        = command;
+      this.exitCode       = exitCode;
+      this.queueWaitNanos = queueWaitNanos;
+      this.latencyNanos   = latencyNanos;
+      this.lineCount      = lineCount;
+      this.tail           = tail;
+      this.error          = error;
+    }
+
+    /**
+     * @return the command, as a string.
+     */
+    public String getCommand() {
+      return command;
+    }
+
+    /**
+     * @return the exit code of the process; -1 if it could not be run.
+     */
+    public int getExitCode() {
+      return exitCode;
+    }
+
+    /**
+     * @return true if the process ran and exited with 0.
+     */
+    public boolean isSuccessful() {
+      return error == null && exitCode == 0;
+    }
+
+    /**
+     * @param unit the time unit of the returned value.
+     * @return how long the command waited for a free slot.
+     */
+    public long getQueueWait(TimeUnit unit) {
+      return unit.convert(queueWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the time unit of the returned value.
+     * @return how long the command took, from start to exit.
+     */
+    public long getLatency(TimeUnit unit) {
+      return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of output lines.
+     */
+    public int getLineCount() {
+      return lineCount;
+    }
+
+    /**
+     * @return the last output lines.
+     */
+    public List<String> getTail() {
+      return tail;
+    }
+
+    /**
+     * @return the error that prevented the command from running, if any.
+     */
+    public Optional<Exception> getError() {
+      return Optional.ofNullable(error);
+    }
+
+    @Override public String toString() {
+      return "Outcome(command=" + command + ", exitCode=" + exitCode
+        + ", latency=" + getLatency(TimeUnit.MILLISECONDS) + "ms"
+        + ", queueWait=" + getQueueWait(TimeUnit.MILLISECONDS) + "ms)";
+    }
+  }
+}
@@ -1,10 +1,15 @@
 package com.vesperin.utils;
 
+import java.util.AbstractList;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collector;
@@ -13,6 +18,9 @@ import java.util.stream.Stream;
 
 /**
  * Immutable's plaything
+ *
+ * Lists and sets made here are returned as they are when passed in again,
+ * rather than copied; empty ones are the shared empty collections.
  */
 public class Immutable {
   private Immutable() {}
@@ -23,7 +31,7 @@ public class Immutable {
    * @return an immutable list.
    */
   public static <T> List<T> list() {
-    return Immutable.listOf(Collections.emptyList());
+    return Collections.emptyList();
   }
 
   /**
@@ -34,7 +42,7 @@ public class Immutable {
    * @return an immutable list.
    */
   public static <T> List<T> listOf(Stream<? extends T> stream) {
-    return stream == null ? list() : stream.collect(toImmutableList());
+    return stream == null ? list() : frozenList(stream.collect(Collectors.toList()));
   }
 
   /**
@@ -44,8 +52,12 @@ public class Immutable {
    * @param <T>  type parameter
    * @return an immutable list.
    */
+  @SuppressWarnings("unchecked")
   public static <T> List<T> listOf(Collection<? extends T> list) {
-    return list == null ? list() : list.stream().collect(toImmutableList());
+    if (list == null || list.isEmpty()) return list();
+    if (list instanceof FrozenList) return (List<T>) list;
+
+    return frozenList(new ArrayList<>(list));
   }
 
   /**
@@ -54,7 +66,7 @@ public class Immutable {
    * @return an immutable list.
    */
   public static <T> Set<T> set() {
-    return Immutable.setOf(Collections.emptyList());
+    return Collections.emptySet();
   }
 
 
@@ -65,8 +77,12 @@ public class Immutable {
    * @param <T>  type parameter
    * @return an immutable set.
    */
+  @SuppressWarnings("unchecked")
   public static <T> Set<T> setOf(Collection<? extends T> set) {
-    return set == null ? set() : set.stream().collect(toImmutableSet());
+    if (set == null || set.isEmpty()) return set();
+    if (set instanceof FrozenSet) return (Set<T>) set;
+
+    return frozenSet(new HashSet<>(set));
   }
 
   /**
@@ -77,7 +93,21 @@ public class Immutable {
    * @return an immutable list.
    */
   public static <T> Set<T> setOf(Stream<? extends T> stream) {
-    return stream == null ? set() : stream.collect(toImmutableSet());
+    return stream == null ? set() : frozenSet(stream.collect(Collectors.toCollection(HashSet::new)));
+  }
+
+  /**
+   * Wraps a list that no one else holds, without copying it.
+   */
+  static <T> List<T> frozenList(List<T> owned) {
+    return owned.isEmpty() ? list() : new FrozenList<>(owned);
+  }
+
+  /**
+   * Wraps a set that no one else holds, without copying it.
+   */
+  static <T> Set<T> frozenSet(Set<T> owned) {
+    return owned.isEmpty() ? set() : new FrozenSet<>(owned);
   }
 
   /**
@@ -151,28 +181,55 @@ public class Immutable {
 
 
   /**
-   * Creates a collector that transforms a mutable list into an immutable one.
-   *
-   * @param <T> the type parameter.
-   * @return a new collector object.
+   * A read-only list over a list no one else holds.
    */
-  private static <T> Collector<T, ?, List<T>> toImmutableList() {
-    return Collectors.collectingAndThen(
-      Collectors.toList(),
-      Collections::unmodifiableList
-    );
+  private static final class FrozenList<T> extends AbstractList<T> implements RandomAccess {
+    private final List<T> items;
+
+    FrozenList(List<T> items) {
+      this.items = items;
+    }
+
+    @Override public T get(int index) {
+      return items.get(index);
+    }
+
+    @Override public int size() {
+      return items.size();
+    }
   }
 
   /**
-   * Creates a collector that transforms a mutable set into an immutable one.
-   *
-   * @param <T> the type parameter.
-   * @return a new collector object.
+   * A read-only set over a set no one else holds.
    */
-  private static <T> Collector<T, ?, Set<T>> toImmutableSet() {
-    return Collectors.collectingAndThen(
-      Collectors.toSet(),
-      Collections::unmodifiableSet
-    );
+  private static final class FrozenSet<T> extends AbstractSet<T> {
+    private final Set<T> items;
+
+    FrozenSet(Set<T> items) {
+      this.items = items;
+    }
+
+    @Override public boolean contains(Object o) {
+      return items.contains(o);
+    }
+
+    @Override public Iterator<T> iterator() {
+      final Iterator<T> iterator = items.iterator();
+
+      // Iterator#remove is unsupported by default
+      return new Iterator<T>() {
+        @Override public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override public T next() {
+          return iterator.next();
+        }
+      };
+    }
+
+    @Override public int size() {
+      return items.size();
+    }
   }
-}
\ No newline at end of file
+}
@@ -25,15 +25,36 @@ public class Sets {
    * collections passed in.
    */
   public static <T> double similarityCoefficient(final Set<T> a, final Set<T> b){
-    final Set<T> union         = Sets.union(a, b);
-    final Set<T> intersection  = Sets.intersection(a, b);
+    // counts, rather than builds, the union and intersection
+    final int intersectionSize  = intersectionSize(a, b);
+    final int unionSize         = a.size() + b.size() - intersectionSize;
 
-    final double unionSize = 1.0 * union.size();
-    final double intersectSize = 1.0 * intersection.size();
+    final double intersectSize = 1.0 * intersectionSize;
 
     return (intersectSize/unionSize);
   }
 
+  /**
+   * Counts the elements shared by two set objects.
+   *
+   * @param a first set
+   * @param b second set
+   * @return the size of the intersection of both sets.
+   */
+  public static int intersectionSize(final Set<?> a, final Set<?> b){
+    final Set<?> smaller = a.size() <= b.size() ? a : b;
+    final Set<?> larger  = smaller == a ? b : a;
+
+    int count = 0;
+    for (Object each : smaller) {
+      if (larger.contains(each)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
   /**
    * Returns a sub set of two set objects. This sub set
    * contains elements shared by both set objects.
@@ -47,7 +68,7 @@ public class Sets {
   public static <T> Set<T> intersection(final Set<T> a, final Set<?> b){
     final Iterator<? extends T> itr = a.iterator();
 
-    final Set<T> result = new HashSet<>();
+    final Set<T> result = new HashSet<>(capacity(Math.min(a.size(), b.size())));
     while (itr.hasNext()) {
       T e = itr.next();
       if (b.contains(e)) {
@@ -55,7 +76,7 @@ public class Sets {
       }
     }
 
-    return Immutable.setOf(result);
+    return Immutable.frozenSet(result);
   }
 
   /**
@@ -70,13 +91,18 @@ public class Sets {
    */
   public static <T> Set<T> union(Set<? extends T> a, Set<? extends T> b){
 
-    final Set<T> result = new HashSet<>();
+    final Set<T> result = new HashSet<>(capacity(a.size() + b.size()));
     final Iterator<? extends T> x = a.iterator();
     final Iterator<? extends T> y = b.iterator();
 
     while(x.hasNext()) { result.add(x.next());                  }
     while(y.hasNext()) { T next =  y.next(); result.add(next);  }
 
-    return Immutable.setOf(result);
+    return Immutable.frozenSet(result);
+  }
+
+  // a HashSet capacity that fits the given number of elements without rehashing
+  private static int capacity(int expectedSize){
+    return (int) (expectedSize / 0.75f) + 1;
   }
 }
@@ -3,9 +3,18 @@ package com.vesperin.base;
 import com.vesperin.base.locations.Locations;
 import com.vesperin.base.locators.UnitLocation;
 import com.vesperin.utils.Immutable;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -69,5 +78,115 @@ public class ContextTest {
 
   }
 
+  @Test public void testFrozenContext() throws Exception {
 
+    final JavaParser parser = new EclipseJavaParser();
+
+    final Context parsedContext   = parser.parseJava(SRC);
+    final ContextSnapshot frozen  = ContextSnapshot.freeze(parsedContext);
+
+    assertThat(frozen.locateClasses().size() == 1, is(true));
+    assertThat(frozen.locateFields().size() == 0, is(true));
+    assertThat(frozen.locateMethods().size() == 1, is(true));
+    assertThat(frozen.locateMethods().get(0).same(parsedContext.locateMethods().get(0)), is(true));
+
+    final int name = frozen.locate(30, 34);
+    assertThat(frozen.getIdentifier(name).orElse(""), is("exit"));
+
+    final int method = frozen.parent(ASTNode.METHOD_DECLARATION, name);
+    assertThat(frozen.getIdentifier(method).orElse(""), is("exit"));
+    assertThat(frozen.parent(ASTNode.FIELD_DECLARATION, name), is(-1));
+
+    final Context thawed = frozen.thaw(parser);
+    assertThat(thawed.locateMethods().size() == 1, is(true));
+    assertThat(thawed.getScope().same(parsedContext.getScope()), is(true));
+  }
+
+  @Test public void testContextStore() throws Exception {
+
+    final ContextStore store = new ContextStore(new EclipseJavaParser(), 1);
+
+    final Context first = store.get(SRC);
+    store.get(Source.from("Boo", "public class Boo {}"));
+
+    assertThat(store.getVersion("Foo"), is(1));
+    assertThat(store.getParseCount(), is(2L));
+    assertThat(store.put(SRC), is(1));
+    assertThat(store.put(SRC1), is(2));
+
+    final Context second = store.get("Foo").orElse(null);
+    assertThat(second != null && second != first, is(true));
+    assertThat(second.locateClasses().size() == 2, is(true));
+    assertThat(store.getReparseCount(), is(0L));
+  }
+
+  @Test public void testContextStoreOverCapacity() throws Exception {
+    final ContextStore store = new ContextStore(new EclipseJavaParser(), 2);
+
+    final Context foo = store.get(SRC);
+    store.get(Source.from("Boo", "public class Boo {}"));
+    store.get(Source.from("Zoo", "public class Zoo {}"));
+
+    // Foo was demoted to a soft reference, so it is still in memory
+    assertThat(store.getResidentCount(), is(3));
+    assertThat(store.get("Foo").orElse(null) == foo, is(true));
+    assertThat(store.getReparseCount(), is(0L));
+
+    // Boo is now the eldest; once soft contexts are cleared it is parsed again
+    store.trim();
+    assertThat(store.getResidentCount(), is(2));
+    assertThat(store.get("Foo").orElse(null) == foo, is(true));
+
+    final Context boo = store.get("Boo").orElse(null);
+    assertThat(boo != null && boo.locateClasses().size() == 1, is(true));
+    assertThat(store.getParseCount(), is(3L));
+    assertThat(store.getReparseCount(), is(1L));
+  }
+
+  @Test public void testContextStoreParsesOnceForConcurrentRequests() throws Exception {
+    final AtomicInteger  parses  = new AtomicInteger(0);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final ContextStore store = new ContextStore(new EclipseJavaParser(){
+      @Override public Context parseJava(Source code) {
+        parses.incrementAndGet();
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+
+        return super.parseJava(code);
+      }
+    }, 4);
+
+    store.put(SRC);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(5);
+    try {
+      final List<Future<Context>> contexts = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        contexts.add(executor.submit(() -> store.get("Foo").orElse(null)));
+      }
+
+      // the store's lock is not held while parsing
+      started.await(5, TimeUnit.SECONDS);
+      final Future<Integer> version = executor.submit(() -> store.getVersion("Foo"));
+      assertThat(version.get(1, TimeUnit.SECONDS), is(1));
+      release.countDown();
+
+      final Context first = contexts.get(0).get();
+      for (Future<Context> each : contexts) {
+        assertThat(each.get() == first, is(true));
+      }
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+
+    assertThat(parses.get(), is(1));
+    assertThat(store.getParseCount(), is(1L));
+  }
 }
@@ -1,18 +1,33 @@
 package com.vesperin.base;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.vesperin.base.locators.UnitLocation;
+import com.vesperin.base.matchers.MatchMaker;
 import com.vesperin.base.visitors.MethodDeclarationVisitor;
 import com.vesperin.reflects.JavaAnnotation;
 import com.vesperin.reflects.JavaMethod;
 import com.vesperin.utils.Immutable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.junit.Test;
@@ -89,26 +104,30 @@ public class JavaParserTest {
           + ")";
 
       final String workingDir = System.getProperty("user.dir");
+      final Configuration.Environment environment = Configuration.Environment.of(
+        Collections.singletonList(Paths.get(workingDir, "target/test-classes").toString()),
+        null,
+        null
+      );
+
       final JavaParser parser = new EclipseJavaParser(new Configuration() {
         @Override public void configure(JavaParser parser) {
           configureCompilerOptions(parser);
-          configureEnvironment(
-            Collections.singletonList(Paths.get(workingDir, "target/test-classes").toString()),
-            null,
-            null,
-            parser
-          );
+          configureEnvironment(environment, parser);
           configureBindings(parser);
           cleanupAfter(parser);
         }
       });
 
-      final Context context = parser.parseJava(TypeAnnotatedNeedClassPathSRC);
+      // the environment is set again before each parse
+      for (int i = 0; i < 2; i++) {
+        final Context context = parser.parseJava(TypeAnnotatedNeedClassPathSRC);
 
-      MethodDeclarationVisitor methodDeclarationVisitor = new MethodDeclarationVisitor();
-      context.accept(methodDeclarationVisitor);
+        MethodDeclarationVisitor methodDeclarationVisitor = new MethodDeclarationVisitor();
+        context.accept(methodDeclarationVisitor);
 
-    testMethodDeclarations(expectedAnnotationStrValue, methodDeclarationVisitor);
+        testMethodDeclarations(expectedAnnotationStrValue, methodDeclarationVisitor);
+      }
   }
 
   private static void testMethodDeclarations(String expectedAnnotationStrValue, MethodDeclarationVisitor methodDeclarationVisitor) {
@@ -154,4 +173,167 @@ public class JavaParserTest {
       fail("Context should have been well formed");
     }
   }
+
+  @Test public void testIncrementalReparse() {
+    final Source src = Source.from("Foo",
+      String.join("\n",
+        Immutable.listOf(Arrays.asList(
+          "public class Foo {"
+          , " public int exit(){"
+          , "   return 1;"
+          , " }"
+          , " public int next(){"
+          , "   return 2;"
+          , " }"
+          , "}"
+        ))
+      )
+    );
+
+    final JavaParser parser  = new EclipseJavaParser();
+    final Context    context = parser.parseJava(src);
+
+    final int offset = src.getContent().indexOf("1;");
+    final Context updated = parser.reparseJava(context, SourceEdit.replace(offset, 1, "100"));
+
+    assertEquals(src.getContent().replace("return 1;", "return 100;"), updated.getSourceContent());
+    assertEquals(context.getCompilationUnit(), updated.getCompilationUnit());
+    assertEquals(updated.getSourceContent().length(), updated.getCompilationUnit().getLength());
+
+    final MethodDeclarationVisitor visitor = new MethodDeclarationVisitor();
+    updated.accept(visitor);
+
+    assertEquals(2, visitor.getMethodDeclarations().size());
+    for (MethodDeclaration each : visitor.getMethodDeclarations()) {
+      final String code = updated.getSourceContent().substring(
+        each.getStartPosition(), each.getStartPosition() + each.getLength()
+      );
+
+      assertEquals(each.toString().contains("100") ? "public int exit(){\n   return 100;\n }"
+        : "public int next(){\n   return 2;\n }", code);
+    }
+  }
+
+  @Test public void testIncrementalReparseMovesIssues() {
+    final Source src = Source.from("Foo",
+      String.join("\n",
+        Immutable.listOf(Arrays.asList(
+          "public class Foo {"
+          , " public int before(){"
+          , "   return 0"
+          , " }"
+          , " public int exit(){"
+          , "   return 1;"
+          , " }"
+          , " public int after(){"
+          , "   return 2"
+          , " }"
+          , "}"
+        ))
+      )
+    );
+
+    final JavaParser parser  = new EclipseJavaParser();
+    final Context    context = parser.parseJava(src);
+    assertEquals(2, context.getSyntaxProblems().size());
+
+    // adds a line to exit(), moving the issue in after() one line down
+    final int offset = src.getContent().indexOf("return 1;");
+    final Context updated = parser.reparseJava(context, SourceEdit.replace(offset, 0, "int x = 1;\n   "));
+    final Context full    = parser.parseJava(Source.from("Foo", updated.getSourceContent()));
+
+    assertEquals(context.getCompilationUnit(), updated.getCompilationUnit());
+    assertEquals(locationsOf(full), locationsOf(updated));
+  }
+
+  private static List<String> locationsOf(Context context) {
+    final List<String> locations = new ArrayList<>();
+    for (SyntaxIssue each : context.getSyntaxProblems()) {
+      locations.add(each.getErrorLocation().toString());
+    }
+
+    Collections.sort(locations);
+    return locations;
+  }
+
+  @Test public void testWellConstructedCompilationUnits() {
+    final ASTNode wellFormed = parse(ASTParser.K_COMPILATION_UNIT, "public class Foo { int a; }");
+    final ASTNode recovered  = parse(ASTParser.K_COMPILATION_UNIT, "public class Foo { void m( }");
+    final ASTNode malformed  = parse(ASTParser.K_COMPILATION_UNIT, "int a = 1; return a;");
+    final ASTNode empty      = parse(ASTParser.K_COMPILATION_UNIT, "");
+
+    assertTrue(CommonJdt.isWellConstructedCompilationUnit(wellFormed));
+    // syntax errors are reported by the Context, not rejected here
+    assertTrue(CommonJdt.isWellConstructedCompilationUnit(recovered));
+    assertFalse(CommonJdt.isWellConstructedCompilationUnit(malformed));
+    assertFalse(CommonJdt.isWellConstructedCompilationUnit(empty));
+    final ASTNode type = (ASTNode) ((CompilationUnit) wellFormed).types().get(0);
+    assertFalse(CommonJdt.isWellConstructedCompilationUnit(type));
+
+    final ASTNode members = parse(ASTParser.K_CLASS_BODY_DECLARATIONS, "int a; void m(){}");
+    assertTrue(CommonJdt.isMissingTypeDeclarationUnit(members));
+    assertFalse(CommonJdt.isMissingTypeDeclarationUnit(type));
+  }
+
+  private static ASTNode parse(int kind, String code) {
+    final ASTParser parser = ASTParser.newParser(AST.JLS8);
+    parser.setKind(kind);
+    parser.setSource(code.toCharArray());
+    return parser.createAST(null);
+  }
+
+  @Test public void testTemplateSource() throws Exception {
+    final Source template = Source.from("Foo",
+      "class ${name} { String s = \"${value}\"; ${name} self(){ return this; } }"
+    );
+
+    final Map<String, String> options = new HashMap<>();
+    options.put("name", "Foo");
+    options.put("value", "$1 \\ ${x}");
+
+    final Source made = Source.from(template, options);
+    assertEquals("class Foo { String s = \"$1 \\ ${x}\"; Foo self(){ return this; } }", made.getContent());
+
+    final StringTemplate compiled = StringTemplate.of(template);
+    assertEquals(made, Source.from(template, compiled, options));
+    assertEquals(made, Source.from(template, compiled, options));
+  }
+
+  @Test public void testSharedParserAcrossThreads() throws Exception {
+    final JavaParser parser = new EclipseJavaParser();
+    final Source     body   = Source.from("Foo", "public int twice(int x) { return x * 2; }");
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 25; j++) {
+            final Context unit = parser.parseJava(SRC);
+            Context.throwSyntaxErrorIfMalformed(unit, true);
+            assertEquals(1, unit.locateMethods().size());
+
+            final Context declarations = parser.parseJava(body);
+            Context.throwSyntaxErrorIfMalformed(declarations, true);
+            assertEquals(1, declarations.locateMethods().size());
+          }
+
+          // matchers are created once per thread and configuration
+          assertSame(MatchMaker.generateUnitMatchers(parser), MatchMaker.generateUnitMatchers(parser));
+          return null;
+        }));
+      }
+
+      for (Future<?> each : futures) {
+        each.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test public void testWarmUp() throws Exception {
+    final Configuration configuration = new EclipseJavaParser().getConfiguration();
+    assertTrue(WarmUp.warmUp(configuration) > 0);
+  }
 }
@@ -0,0 +1,147 @@
+package com.vesperin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Huascar Sanchez
+ */
+public class ProjectAnalyzerTest {
+  private static Path directory;
+
+  @BeforeClass public static void setUp() throws Exception {
+    directory = Files.createTempDirectory("project");
+
+    final Path foo = Files.createDirectories(directory.resolve("com/foo"));
+    Files.write(foo.resolve("Foo.java"), "class Foo { int x; }".getBytes(StandardCharsets.UTF_8));
+    Files.write(foo.resolve("Bar.java"), "class Bar { void y(){} }".getBytes(StandardCharsets.UTF_8));
+
+    // an empty file cannot be parsed
+    Files.write(foo.resolve("Broken.java"), new byte[0]);
+  }
+
+  @Test public void testEveryAnalysisReachesTheSink() throws Exception {
+    final List<ProjectAnalyzer.Result> results = new ArrayList<>();
+    final ProjectAnalyzer.Report       report  = newAnalyzer(1024).analyze(directory, results::add);
+
+    assertReport(report, results);
+  }
+
+  @Test public void testSlowSinkWithSingleSlotBuffer() throws Exception {
+    final List<ProjectAnalyzer.Result> results = new ArrayList<>();
+    final ProjectAnalyzer.Report       report  = newAnalyzer(1).analyze(directory, r -> {
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      results.add(r);
+    });
+
+    assertReport(report, results);
+  }
+
+  @Test public void testCheckedParseFailuresAreReported() throws Exception {
+    final PrintWriter silent = new PrintWriter(new NullWriter());
+
+    final Configuration failing = parser -> ProjectAnalyzerTest.<RuntimeException>sneakyThrow(
+      new IOException("unreadable classpath")
+    );
+
+    final List<ProjectAnalyzer.Result> results = new ArrayList<>();
+    final ProjectAnalyzer.Report       report  = new ProjectAnalyzer(failing, 1024, silent, silent)
+      .register("name", c -> c.getSource().getName())
+      .analyze(directory, results::add);
+
+    assertEquals(3, report.getFiles());
+    assertEquals(0, report.getParsedFiles());
+    assertEquals(3, report.getFailures());
+
+    assertEquals(3, results.size());
+    for (ProjectAnalyzer.Result each : results) {
+      assertEquals("parse", each.getAnalysis());
+      assertTrue(each.getError().get() instanceof IOException);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> void sneakyThrow(Exception e) throws E {
+    throw (E) e;
+  }
+
+  @AfterClass public static void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path each : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(each);
+      }
+    }
+
+    directory = null;
+  }
+
+  private static ProjectAnalyzer newAnalyzer(int sinkCapacity) {
+    final PrintWriter silent = new PrintWriter(new NullWriter());
+
+    return new ProjectAnalyzer(new EclipseJavaParser().getConfiguration(), sinkCapacity, silent, silent)
+      .register("name", c -> c.getSource().getName())
+      .register("length", c -> c.getSourceContent().length());
+  }
+
+  private static void assertReport(ProjectAnalyzer.Report report, List<ProjectAnalyzer.Result> results) {
+    assertEquals(3, report.getFiles());
+    assertEquals(2, report.getParsedFiles());
+    assertEquals(1, report.getFailures());
+
+    // the sink is called from a single thread, which is done by now
+    final Map<String, List<String>> analyses = new HashMap<>();
+    for (ProjectAnalyzer.Result each : results) {
+      final String file = each.getFile().getFileName().toString();
+      analyses.computeIfAbsent(file, k -> new ArrayList<>()).add(each.getAnalysis());
+
+      if ("Broken.java".equals(file)) {
+        assertTrue(each.getError().isPresent());
+        assertNull(each.getValue());
+      } else {
+        assertFalse(each.getError().isPresent());
+      }
+    }
+
+    assertEquals(3, analyses.size());
+    assertEquals(1, analyses.get("Broken.java").size());
+    assertEquals("parse", analyses.get("Broken.java").get(0));
+
+    for (String each : new String[]{"Foo.java", "Bar.java"}) {
+      final List<String> names = analyses.get(each);
+      names.sort(Comparator.naturalOrder());
+      assertEquals("[length, name]", names.toString());
+    }
+
+    assertEquals(5, results.size());
+  }
+
+  static class NullWriter extends Writer {
+    @Override public void write(char[] buffer, int offset, int length) {}
+    @Override public void flush() {}
+    @Override public void close() {}
+  }
+}
@@ -0,0 +1,108 @@
+package com.vesperin.base;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Huascar Sanchez
+ */
+public class SourcesTest {
+  private static final String CONTENT = "class Foo {\r\n  String s = \"caf\u00e9\";\r\n}\n";
+
+  private static Path directory;
+
+  @BeforeClass public static void setUp() throws Exception {
+    directory = Files.createTempDirectory("sources");
+  }
+
+  @Test public void testUtf8WithoutByteOrderMark() throws Exception {
+    final Path file = write("Foo.java", CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    final Source source = Sources.read(file);
+    assertEquals("Foo", source.getName());
+    assertEquals(CONTENT, source.getContent());
+  }
+
+  @Test public void testByteOrderMarks() throws Exception {
+    assertEquals(CONTENT, Sources.read(write("Foo.java", withMark(StandardCharsets.UTF_8, 0xEF, 0xBB, 0xBF))).getContent());
+    assertEquals(CONTENT, Sources.read(write("Foo.java", withMark(StandardCharsets.UTF_16BE, 0xFE, 0xFF))).getContent());
+    assertEquals(CONTENT, Sources.read(write("Foo.java", withMark(StandardCharsets.UTF_16LE, 0xFF, 0xFE))).getContent());
+  }
+
+  @Test public void testInvalidUtf8FallsBack() throws Exception {
+    final Path file = write("Foo.java", CONTENT.getBytes(StandardCharsets.ISO_8859_1));
+
+    assertEquals(CONTENT, Sources.read(file).getContent());
+    assertEquals(CONTENT, Sources.read(file, Charset.forName("windows-1252")).getContent());
+  }
+
+  @Test public void testLineSeparatorsAreKept() throws Exception {
+    final Path file = write("Foo.java", CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    final Source source = Source.from(file.toFile());
+    assertEquals(CONTENT, source.getContent());
+  }
+
+  @Test public void testLargeFilesAreMapped() throws Exception {
+    final StringBuilder content = new StringBuilder("class Foo {\r\n");
+    while (content.length() < 2 * 1024 * 1024) {
+      content.append("  // caf\u00e9\r\n");
+    }
+
+    content.append("}");
+
+    final Path file = write("Foo.java", content.toString().getBytes(StandardCharsets.UTF_8));
+    assertEquals(content.toString(), Sources.read(file).getContent());
+  }
+
+  @Test public void testWalk() throws Exception {
+    final Path root = Files.createDirectories(directory.resolve("walk/com/foo"));
+    Files.write(root.resolve("A.java"), "class A {}".getBytes(StandardCharsets.UTF_8));
+    Files.write(root.resolve("B.java"), "class B {}".getBytes(StandardCharsets.UTF_8));
+    Files.write(root.resolve("notes.txt"), "class C {}".getBytes(StandardCharsets.UTF_8));
+
+    try (Stream<Source> sources = Sources.walk(directory.resolve("walk"))) {
+      final List<String> names = sources.map(Source::getName).sorted().collect(Collectors.toList());
+      assertEquals(Arrays.asList("A", "B"), names);
+    }
+  }
+
+  @AfterClass public static void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path each : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(each);
+      }
+    }
+
+    directory = null;
+  }
+
+  private static byte[] withMark(Charset charset, int... mark) {
+    final byte[] content = CONTENT.getBytes(charset);
+    final byte[] result  = new byte[mark.length + content.length];
+
+    for (int i = 0; i < mark.length; i++) {
+      result[i] = (byte) mark[i];
+    }
+
+    System.arraycopy(content, 0, result, mark.length, content.length);
+    return result;
+  }
+
+  private static Path write(String name, byte[] bytes) throws IOException {
+    return Files.write(directory.resolve(name), bytes);
+  }
+}
@@ -1,6 +1,7 @@
 package com.vesperin.base.locations;
 
 import com.vesperin.base.Source;
+import java.util.List;
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -78,5 +79,26 @@ public class LocationTests {
     assertThat(Locations.outside(c, a), is(true));
   }
 
+  @Test public void testBatchedLocationsMatchSingleLocations() {
+    final String content = "class A {\r\n  int a;\r  int b;\n}";
+    final Source source  = Source.from("A", content);
+
+    final int[] starts = {30, 0, 13, 14, 20};
+    final int[] ends   = {33, 5, 19, 14, 40};
+
+    final List<Location> batched = Locations.createLocations(source, content, starts, ends);
+
+    for (int i = 0; i < starts.length; i++) {
+      final Location single = Locations.createLocation(source, content, starts[i], ends[i]);
+      final Location each   = batched.get(i);
+
+      assertThat(each.getStart().getLine(), is(single.getStart().getLine()));
+      assertThat(each.getStart().getColumn(), is(single.getStart().getColumn()));
+      assertThat(each.getEnd().getLine(), is(single.getEnd().getLine()));
+      assertThat(each.getEnd().getColumn(), is(single.getEnd().getColumn()));
+      assertThat(each.same(single), is(true));
+    }
+  }
+
 
 }
\ No newline at end of file
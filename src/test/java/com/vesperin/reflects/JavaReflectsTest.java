@@ -1,9 +1,14 @@
 package com.vesperin.reflects;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -29,4 +34,65 @@ public class JavaReflectsTest {
     JavaClasses.publicClasses(Thread.currentThread().getContextClassLoader())
         .forEach(Assert::assertNotNull);
   }
+
+  @Test public void testFindingCoreClassesInJre() throws Exception {
+    final Set<Class<?>> classes = new HashSet<>();
+    for (JarFinder.Jar each : JarFinder.findJREJarFiles()) {
+      classes.addAll(each.classes());
+    }
+
+    assertTrue(classes.contains(String.class));
+    assertTrue(classes.contains(java.util.List.class));
+    assertTrue(classes.contains(java.util.concurrent.ConcurrentHashMap.class));
+    assertTrue(classes.contains(java.util.Map.Entry.class));
+
+    for (Class<?> each : classes) {
+      assertFalse(each.isAnonymousClass());
+    }
+
+    // only modules' exported packages are read; rt.jar has no such filter
+    if (SysInfo.SUN_BOOT_PATH.value() == null) {
+      for (Class<?> each : classes) {
+        assertFalse(each.getName().startsWith("jdk.internal."));
+      }
+    }
+
+    // computed once
+    assertSame(JarFinder.findJREJarFiles(), JarFinder.findJREJarFiles());
+  }
+
+  @Test public void testJdkPackagesOfJavaSe8() {
+    assertTrue(JdkPredicates.se8Packages().contains("java.util"));
+    assertTrue(JdkPredicates.inJdk("java.util"));
+    assertTrue(JdkPredicates.inJdk("org.w3c.dom"));
+    assertFalse(JdkPredicates.inJdk("java.utilities"));
+    assertFalse(JdkPredicates.inJdk("com.vesperin.reflects"));
+    assertFalse(JdkPredicates.inJdk(null));
+
+    assertTrue(JdkPredicates.inPackage("java.util.concurrent", JdkPredicates.jdkAll()));
+    assertFalse(JdkPredicates.inPackage("java.util.foo", JdkPredicates.jdkAll()));
+
+    assertTrue(JdkPredicates.isPublicDocumentedJdkClass(String.class));
+    assertFalse(JdkPredicates.isPublicDocumentedJdkClass(JdkPredicates.class));
+  }
+
+  @Test public void testJdkPackagesOfRunningPlatform() {
+    final Set<String> packages = JdkPredicates.javaSePackages();
+    assertTrue(packages.contains("java.lang"));
+    assertTrue(packages.contains("java.util.concurrent"));
+    assertFalse(packages.contains("sun.misc"));
+    assertFalse(packages.contains("jdk.internal.misc"));
+
+    try {
+      JdkPredicates.usePackages(packages);
+
+      assertEquals(packages, JdkPredicates.packages());
+      assertTrue(JdkPredicates.inJdk("java.lang"));
+      assertFalse(JdkPredicates.inJdk("com.vesperin.reflects"));
+      assertTrue(JdkPredicates.inPackage("java.lang", JdkPredicates.jdkAll()));
+      assertFalse(JdkPredicates.inPackage("sun.misc", JdkPredicates.jdkAll()));
+    } finally {
+      JdkPredicates.usePackages(JdkPredicates.se8Packages());
+    }
+  }
 }
@@ -0,0 +1,139 @@
+package com.vesperin.tasks;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Times the scheduling overhead of a large DAG of no-op tasks, before and
+ * after {@link TaskQueue} tracked dependencies with reverse edges. The
+ * "before" policy is replayed here: each time a task finishes, every
+ * blocked task is rescanned through {@link Task#isRunnable()}.
+ *
+ * <p>Run it with {@code sbt "test:runMain com.vesperin.tasks.TaskQueueBenchmark"};
+ * optional arguments are the number of layers (1000) and tasks per layer (100).
+ *
+ * @author Huascar Sanchez
+ */
+public class TaskQueueBenchmark {
+  private TaskQueueBenchmark(){
+    throw new Error("Cannot be instantiated");
+  }
+
+  /**
+   * Builds a DAG of layers of tasks. Each task, past the first layer, runs
+   * after the task at its position in the previous layer succeeds and
+   * after its right neighbor there finishes.
+   *
+   * @param layers number of layers.
+   * @param width number of tasks per layer.
+   * @param onRun called with a task's position (layer * width + index) when it runs.
+   * @return the tasks, layer by layer.
+   */
+  static List<Task> dag(int layers, int width, IntConsumer onRun) {
+    final List<Task> tasks = new ArrayList<>(layers * width);
+
+    List<Task> previous = new ArrayList<>();
+    for (int i = 0; i < layers; i++) {
+      final List<Task> current = new ArrayList<>(width);
+      for (int j = 0; j < width; j++) {
+        final int  position = i * width + j;
+        final Task task     = new Task(i + ":" + j) {
+          @Override protected TaskResult execute() throws Exception {
+            onRun.accept(position);
+            return TaskResult.SUCCESS;
+          }
+        };
+
+        if (!previous.isEmpty()) {
+          task.afterSuccess(previous.get(j));
+          task.after(previous.get((j + 1) % width));
+        }
+
+        current.add(task);
+      }
+
+      tasks.addAll(current);
+      previous = current;
+    }
+
+    return tasks;
+  }
+
+  /**
+   * Runs tasks with a {@link TaskQueue}.
+   *
+   * @return the elapsed time, in nanoseconds.
+   */
+  static long runQueued(List<Task> tasks, PrintWriter log) {
+    final long start = System.nanoTime();
+
+    final TaskQueue queue = new TaskQueue(log, log);
+    queue.enqueueAll(tasks);
+    queue.runTasks();
+
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Runs tasks, one at a time, rescanning every blocked task after each
+   * one finishes; as TaskQueue did before it kept reverse edges.
+   *
+   * @return the elapsed time, in nanoseconds.
+   */
+  static long runRescanning(List<Task> tasks, PrintWriter log) {
+    final long start = System.nanoTime();
+
+    final LinkedList<Task> blocked  = new LinkedList<>(tasks);
+    final LinkedList<Task> runnable = new LinkedList<>();
+
+    promote(blocked, runnable);
+    while (!runnable.isEmpty()) {
+      runnable.poll().run(log, log);
+      promote(blocked, runnable);
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  private static void promote(LinkedList<Task> blocked, LinkedList<Task> runnable) {
+    for (Iterator<Task> it = blocked.iterator(); it.hasNext(); ) {
+      final Task each = it.next();
+      if (each.isRunnable()) {
+        it.remove();
+        runnable.add(each);
+      }
+    }
+  }
+
+  /**
+   * Prints the time of both policies on the same DAG.
+   *
+   * @param args optional number of layers and of tasks per layer.
+   */
+  public static void main(String[] args) {
+    final int layers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final int width  = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+    final PrintWriter silent = new PrintWriter(new TaskQueueTest.NullWriter());
+    final IntConsumer noop   = position -> {};
+
+    // warms up both policies on a small DAG first
+    runRescanning(dag(50, width, noop), silent);
+    runQueued(dag(50, width, noop), silent);
+
+    final long before = runRescanning(dag(layers, width, noop), silent);
+    final long after  = runQueued(dag(layers, width, noop), silent);
+
+    System.out.println(String.format(
+      "Scheduled a %d-task DAG (%d layers x %d): rescanning blocked tasks %dms, reverse edges %dms",
+      layers * width, layers, width,
+      TimeUnit.NANOSECONDS.toMillis(before),
+      TimeUnit.NANOSECONDS.toMillis(after)
+    ));
+  }
+}
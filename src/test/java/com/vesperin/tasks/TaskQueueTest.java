@@ -0,0 +1,515 @@
+package com.vesperin.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.vesperin.utils.StopWatch;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.UnaryOperator;
+import org.junit.Test;
+
+/**
+ * @author Huascar Sanchez
+ */
+public class TaskQueueTest {
+
+  @Test public void testPrerequisitesRunFirst() {
+    final List<String> order = new ArrayList<>();
+
+    final Task parse  = new RecordingTask("parse", order);
+    final Task scope  = new RecordingTask("scope", order).afterSuccess(parse);
+    final Task lookup = new RecordingTask("lookup", order).after(scope);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueue(lookup);
+    queue.enqueue(scope);
+    queue.enqueue(parse);
+    queue.runTasks();
+
+    assertEquals("[parse, scope, lookup]", order.toString());
+    assertTrue(queue.getTasks().isEmpty());
+  }
+
+  @Test public void testFailedPrerequisiteBlocksDependents() {
+    final AtomicInteger executed = new AtomicInteger(0);
+
+    final Task failing = new CountingTask("failing", executed, TaskResult.ERROR);
+    final Task blocked = new CountingTask("blocked", executed, TaskResult.SUCCESS).afterSuccess(failing);
+    final Task runs    = new CountingTask("runs", executed, TaskResult.SUCCESS).after(failing);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueue(failing);
+    queue.enqueue(blocked);
+    queue.enqueue(runs);
+    queue.runTasks();
+
+    assertEquals(2, executed.get());
+    assertEquals(1, queue.getTasks().size());
+    assertEquals(blocked, queue.getFirst());
+  }
+
+  @Test public void testLargeDagScheduling() {
+    final int layers = 1000;
+    final int width  = 100;
+
+    // the n-th finished task records n, at the task's position
+    final AtomicInteger       finished = new AtomicInteger(0);
+    final AtomicIntegerArray  order    = new AtomicIntegerArray(layers * width);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueueAll(TaskQueueBenchmark.dag(
+      layers, width, position -> order.set(position, finished.incrementAndGet())
+    ));
+    queue.runTasks();
+
+    assertEquals(layers * width, finished.get());
+    for (int i = 1; i < layers; i++) {
+      for (int j = 0; j < width; j++) {
+        final int task = order.get(i * width + j);
+        assertTrue(task > order.get((i - 1) * width + j));
+        assertTrue(task > order.get((i - 1) * width + (j + 1) % width));
+      }
+    }
+  }
+
+  @Test public void testActionsAreThrottled() {
+    final AtomicInteger running    = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+
+    final PrintWriter silent = new PrintWriter(new NullWriter());
+    final TaskQueue   queue  = new TaskQueue(silent, silent, 2);
+
+    for (int i = 0; i < 50; i++) {
+      queue.enqueue(new Task("action " + i) {
+        @Override protected TaskResult execute() throws Exception {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(2);
+          running.decrementAndGet();
+          return TaskResult.SUCCESS;
+        }
+
+        @Override public boolean isAction() {
+          return true;
+        }
+      });
+    }
+
+    queue.runTasks();
+
+    assertTrue(maxRunning.get() <= 2);
+    assertTrue(queue.getTasks().isEmpty());
+  }
+
+  @Test public void testConcurrentEnqueues() throws Exception {
+    final AtomicInteger executed = new AtomicInteger(0);
+    final TaskQueue     queue    = newQueue();
+
+    final List<Thread> producers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final int producer = i;
+      producers.add(new Thread(() -> {
+        final List<Task> batch = new ArrayList<>();
+        for (int j = 0; j < 1000; j++) {
+          batch.add(new CountingTask(producer + ":" + j, executed, TaskResult.SUCCESS));
+        }
+
+        queue.enqueueAll(batch);
+      }));
+    }
+
+    for (Thread each : producers) each.start();
+    for (Thread each : producers) each.join();
+
+    queue.runTasks();
+
+    assertEquals(4000, executed.get());
+  }
+
+  @Test public void testEnqueueFromRunFinished() {
+    final AtomicInteger executed = new AtomicInteger(0);
+    final AtomicInteger runs     = new AtomicInteger(0);
+    final Task          late     = new CountingTask("late", executed, TaskResult.SUCCESS);
+
+    final TaskQueue queue = newQueue();
+    queue.addListener(new TaskListener() {
+      @Override public void runFinished(TaskQueue queue) {
+        if (runs.getAndIncrement() == 0) {
+          queue.enqueue(late);
+        }
+      }
+    });
+
+    queue.enqueue(new CountingTask("first", executed, TaskResult.SUCCESS));
+    queue.runTasks();
+
+    // the run is over; the late task waits for the next one
+    assertEquals(1, executed.get());
+    assertEquals(Arrays.asList(late), queue.getTasks());
+
+    queue.runTasks();
+
+    assertEquals(2, executed.get());
+    assertEquals(TaskResult.SUCCESS, late.result);
+    assertTrue(queue.getTasks().isEmpty());
+  }
+
+  @Test public void testEnqueuesWhileRunsEnd() throws Exception {
+    final AtomicInteger executed = new AtomicInteger(0);
+    final TaskQueue     queue    = newQueue();
+
+    final Thread producer = new Thread(() -> {
+      for (int i = 0; i < 2000; i++) {
+        queue.enqueue(new CountingTask("task " + i, executed, TaskResult.SUCCESS));
+      }
+    });
+
+    producer.start();
+    while (producer.isAlive()) {
+      queue.runTasks();
+    }
+
+    producer.join();
+    queue.runTasks();
+
+    assertEquals(2000, executed.get());
+    assertTrue(queue.getTasks().isEmpty());
+  }
+
+  @Test public void testListenerAndCriticalPath() {
+    final List<TaskMetrics> finished = new ArrayList<>();
+    final AtomicInteger     runs     = new AtomicInteger(0);
+
+    final Task parse  = new SleepingTask("parse", 20);
+    final Task scope  = new SleepingTask("scope", 20).afterSuccess(parse);
+    final Task lookup = new SleepingTask("lookup", 1).afterSuccess(parse);
+    final Task report = new SleepingTask("report", 1).after(scope).after(lookup);
+
+    final TaskQueue queue = newQueue();
+    queue.addListener(new TaskListener() {
+      @Override public void taskFinished(Task task, TaskMetrics metrics) {
+        synchronized (finished) {
+          finished.add(metrics);
+        }
+      }
+
+      @Override public void runFinished(TaskQueue queue) {
+        runs.incrementAndGet();
+        assertEquals(0, queue.getRunningCount());
+      }
+    });
+
+    queue.enqueueAll(Arrays.asList(parse, scope, lookup, report));
+    queue.runTasks();
+
+    assertEquals(4, finished.size());
+    assertEquals(1, runs.get());
+    assertEquals(Arrays.asList(parse, scope, report), queue.getCriticalPath());
+
+    for (TaskMetrics each : finished) {
+      assertEquals(TaskResult.SUCCESS, each.getResult());
+      assertTrue(each.getRunTime(TimeUnit.NANOSECONDS) > 0);
+      assertTrue(each.getWorker().startsWith("TaskQueue"));
+    }
+  }
+
+  @Test public void testFailingListenerDoesNotStopTheRun() {
+    final AtomicInteger executed = new AtomicInteger(0);
+
+    final Task parse = new CountingTask("parse", executed, TaskResult.SUCCESS);
+    final Task scope = new CountingTask("scope", executed, TaskResult.SUCCESS).afterSuccess(parse);
+
+    final StringWriter errors = new StringWriter();
+    final PrintWriter  silent = new PrintWriter(new NullWriter());
+    final TaskQueue    queue  = new TaskQueue(silent, new PrintWriter(errors, true));
+
+    queue.addListener(new TaskListener() {
+      @Override public void taskEnqueued(Task task) {
+        throw new IllegalStateException("enqueued");
+      }
+
+      @Override public void taskRunnable(Task task) {
+        throw new IllegalStateException("runnable");
+      }
+
+      @Override public void taskStarted(Task task) {
+        throw new IllegalStateException("started");
+      }
+
+      @Override public void taskFinished(Task task, TaskMetrics metrics) {
+        throw new IllegalStateException("finished");
+      }
+
+      @Override public void runFinished(TaskQueue queue) {
+        throw new IllegalStateException("run finished");
+      }
+    });
+
+    queue.enqueueAll(Arrays.asList(parse, scope));
+    assertTrue(queue.runTasks(10, TimeUnit.SECONDS));
+
+    assertEquals(2, executed.get());
+    assertEquals(TaskResult.SUCCESS, scope.result);
+
+    for (String each : Arrays.asList("enqueued", "runnable", "started", "finished", "run finished")) {
+      assertTrue(errors.toString().contains(": " + each + System.lineSeparator()));
+    }
+  }
+
+  @Test public void testTaskTimeout() {
+    final AtomicInteger executed = new AtomicInteger(0);
+
+    final Task hung     = new SleepingTask("hung", 60_000).timeout(20, TimeUnit.MILLISECONDS);
+    final Task runs     = new CountingTask("runs", executed, TaskResult.SUCCESS).after(hung);
+    final Task blocked  = new CountingTask("blocked", executed, TaskResult.SUCCESS).afterSuccess(hung);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueueAll(Arrays.asList(hung, runs, blocked));
+
+    assertTrue(queue.runTasks(10, TimeUnit.SECONDS));
+    assertEquals(TaskResult.TIMED_OUT, hung.result);
+    assertEquals(1, executed.get());
+    assertEquals(Arrays.asList(blocked), queue.getTasks());
+  }
+
+  @Test public void testRunDeadline() {
+    final AtomicInteger executed = new AtomicInteger(0);
+
+    final Task hung  = new SleepingTask("hung", 60_000);
+    final Task after = new CountingTask("after", executed, TaskResult.SUCCESS).after(hung);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueueAll(Arrays.asList(hung, after));
+
+    final StopWatch watch = new StopWatch();
+    assertFalse(queue.runTasks(50, TimeUnit.MILLISECONDS));
+    assertTrue(watch.elapsedTime() < 10);
+
+    assertTrue(hung.isCancelled());
+  }
+
+  @Test public void testCancelAll() throws Exception {
+    final AtomicInteger executed = new AtomicInteger(0);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final Task hung = new Task("hung") {
+      @Override protected TaskResult execute() throws Exception {
+        started.countDown();
+        Thread.sleep(60_000);
+        return TaskResult.SUCCESS;
+      }
+    };
+
+    final Task after = new CountingTask("after", executed, TaskResult.SUCCESS).after(hung);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueueAll(Arrays.asList(hung, after));
+
+    final Thread canceller = new Thread(() -> {
+      try {
+        started.await();
+        queue.cancelAll();
+      } catch (InterruptedException ignored) {}
+    });
+
+    canceller.start();
+    assertTrue(queue.runTasks(10, TimeUnit.SECONDS));
+    canceller.join();
+
+    assertEquals(TaskResult.CANCELLED, hung.result);
+    assertEquals(TaskResult.CANCELLED, after.result);
+    assertEquals(0, executed.get());
+  }
+
+  @Test public void testValuesFlowToDependents() {
+    final AtomicInteger computed = new AtomicInteger(0);
+
+    final ValueTask<String>  parse = new LengthTask.Parse("class A {}", computed);
+    final ValueTask<Integer> scope = new LengthTask(parse, computed);
+
+    final TaskQueue queue = newQueue();
+    queue.enqueueAll(Arrays.asList(parse, scope));
+    queue.runTasks();
+
+    assertEquals(10, scope.getValue().intValue());
+    assertEquals(2, computed.get());
+  }
+
+  @Test public void testValuesAreMemoizedAcrossRuns() {
+    final AtomicInteger computed = new AtomicInteger(0);
+    final ResultCache   cache    = new ResultCache();
+
+    for (int i = 0; i < 2; i++) {
+      final ValueTask<String>  parse = new LengthTask.Parse("class A {}", computed);
+      final ValueTask<Integer> scope = new LengthTask(parse, computed);
+
+      final TaskQueue queue = newQueue();
+      queue.useCache(cache);
+      queue.enqueueAll(Arrays.asList(parse, scope));
+      queue.runTasks();
+
+      assertEquals(10, scope.getValue().intValue());
+      assertEquals(i == 1, parse.isCached());
+    }
+
+    // the parse is memoized; the length task has no content key
+    assertEquals(3, computed.get());
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test public void testCacheNamespacesKeepValuesApart() {
+    final ResultCache cache = new ResultCache();
+
+    final TaskQueue queue = newQueue();
+    queue.useCache(cache);
+
+    // same class, same content key
+    final ValueTask<String> upper = new KeyedTask("upper", "a", String::toUpperCase);
+    final ValueTask<String> twice = new KeyedTask("twice", "a", s -> s + s);
+    queue.enqueueAll(Arrays.asList(upper, twice));
+    queue.runTasks();
+
+    assertEquals("A", upper.getValue());
+    assertEquals("aa", twice.getValue());
+    assertEquals(2, cache.size());
+
+    final ValueTask<String> again = new KeyedTask("upper", "a", s -> "not computed");
+    queue.enqueue(again);
+    queue.runTasks();
+
+    assertTrue(again.isCached());
+    assertEquals("A", again.getValue());
+  }
+
+  private static TaskQueue newQueue() {
+    final PrintWriter silent = new PrintWriter(new NullWriter());
+    return new TaskQueue(silent, silent);
+  }
+
+  static class RecordingTask extends Task {
+    final List<String> order;
+
+    RecordingTask(String name, List<String> order) {
+      super(name);
+      this.order = order;
+    }
+
+    @Override protected TaskResult execute() throws Exception {
+      synchronized (order) {
+        order.add(toString());
+      }
+
+      return TaskResult.SUCCESS;
+    }
+  }
+
+  static class SleepingTask extends Task {
+    final long millis;
+
+    SleepingTask(String name, long millis) {
+      super(name);
+      this.millis = millis;
+    }
+
+    @Override protected TaskResult execute() throws Exception {
+      Thread.sleep(millis);
+      return TaskResult.SUCCESS;
+    }
+  }
+
+  static class CountingTask extends Task {
+    final AtomicInteger counter;
+    final TaskResult    result;
+
+    CountingTask(String name, AtomicInteger counter, TaskResult result) {
+      super(name);
+      this.counter = counter;
+      this.result  = result;
+    }
+
+    @Override protected TaskResult execute() throws Exception {
+      counter.incrementAndGet();
+      return result;
+    }
+  }
+
+  static class LengthTask extends ValueTask<Integer> {
+    final ValueTask<String> source;
+    final AtomicInteger     counter;
+
+    LengthTask(ValueTask<String> source, AtomicInteger counter) {
+      super("length");
+      this.source  = source;
+      this.counter = counter;
+
+      afterSuccess(source);
+    }
+
+    @Override protected Integer compute() throws Exception {
+      counter.incrementAndGet();
+      return input(source).length();
+    }
+
+    static class Parse extends ValueTask<String> {
+      final String        content;
+      final AtomicInteger counter;
+
+      Parse(String content, AtomicInteger counter) {
+        super("parse");
+        this.content = content;
+        this.counter = counter;
+      }
+
+      @Override protected String compute() throws Exception {
+        counter.incrementAndGet();
+        return content;
+      }
+
+      @Override protected Optional<?> contentKey() {
+        return Optional.of(content);
+      }
+    }
+  }
+
+  static class KeyedTask extends ValueTask<String> {
+    final String                namespace;
+    final String                content;
+    final UnaryOperator<String> function;
+
+    KeyedTask(String namespace, String content, UnaryOperator<String> function) {
+      super(namespace + " " + content);
+      this.namespace = namespace;
+      this.content   = content;
+      this.function  = function;
+    }
+
+    @Override protected String compute() throws Exception {
+      return function.apply(content);
+    }
+
+    @Override protected Optional<?> contentKey() {
+      return Optional.of(content);
+    }
+
+    @Override protected Object cacheNamespace() {
+      return namespace;
+    }
+  }
+
+  static class NullWriter extends Writer {
+    @Override public void write(char[] buffer, int offset, int length) {}
+    @Override public void flush() {}
+    @Override public void close() {}
+  }
+}
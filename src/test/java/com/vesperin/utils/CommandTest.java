@@ -0,0 +1,213 @@
+package com.vesperin.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * @author Huascar Sanchez
+ */
+public class CommandTest {
+  private static final PrintWriter SILENT = new PrintWriter(new NullWriter());
+
+  @Test public void testSinkSeesEveryLine() throws Exception {
+    final List<String> lines = new ArrayList<>();
+    final int exitCode = Command.of(SILENT, SILENT)
+      .arguments("seq", "1", "1000")
+      .echo(false)
+      .captureLimit(1, 1)
+      .build()
+      .execute(lines::add);
+
+    assertEquals(0, exitCode);
+    assertEquals(1000, lines.size());
+    assertEquals("1", lines.get(0));
+    assertEquals("1000", lines.get(999));
+  }
+
+  @Test public void testCaptureLimit() throws Exception {
+    final List<String> byLines = Command.of(SILENT, SILENT)
+      .arguments("seq", "1", "100")
+      .captureLimit(10, Long.MAX_VALUE)
+      .execute();
+
+    assertEquals(10, byLines.size());
+    assertEquals("10", byLines.get(9));
+
+    // "1" to "5" fill the 5 chars; later lines are dropped
+    final List<String> byChars = Command.of(SILENT, SILENT)
+      .arguments("seq", "1", "100")
+      .captureLimit(100, 5)
+      .execute();
+
+    assertEquals(Arrays.asList("1", "2", "3", "4", "5"), byChars);
+  }
+
+  @Test public void testEcho() throws Exception {
+    final StringWriter echoed = new StringWriter();
+    Command.of(new PrintWriter(echoed, true), SILENT).arguments("printf", "a\\nb\\n").execute();
+
+    assertTrue(echoed.toString().contains("a" + System.lineSeparator() + "b"));
+
+    final StringWriter quiet = new StringWriter();
+    final List<String> output = Command.of(new PrintWriter(quiet, true), SILENT)
+      .arguments("printf", "a\\nb\\n")
+      .echo(false)
+      .execute();
+
+    assertEquals(Arrays.asList("a", "b"), output);
+    assertFalse(quiet.toString().contains("a" + System.lineSeparator()));
+  }
+
+  @Test public void testFailureReportsTail() throws Exception {
+    try {
+      Command.of(SILENT, SILENT).arguments("sh", "-c", "seq 1 100; exit 3").tailLines(5).execute();
+      fail("failed command should throw");
+    } catch (RuntimeException expected) {
+      assertEquals("Command failed: sh -c seq 1 100; exit 3\n  96\n  97\n  98\n  99\n  100", expected.getMessage());
+    }
+
+    try {
+      Command.of(SILENT, SILENT).arguments("sh", "-c", "seq 1 100; exit 3").build().execute(line -> {});
+      fail("failed command should throw");
+    } catch (RuntimeException expected) {
+      // the last 50 lines by default
+      assertTrue(expected.getMessage().contains("\n  51\n"));
+      assertFalse(expected.getMessage().contains("\n  50\n"));
+    }
+
+    final int exitCode = Command.of(SILENT, SILENT)
+      .arguments("sh", "-c", "seq 1 100; exit 3")
+      .permitNonZeroExitStatus()
+      .build()
+      .execute(line -> {});
+
+    assertEquals(3, exitCode);
+  }
+
+  @Test public void testPoolBoundsConcurrency() throws Exception {
+    final AtomicInteger running    = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+
+    try (CommandPool pool = new CommandPool(2)) {
+      final List<Future<CommandPool.Outcome>> futures = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        futures.add(pool.submit(command("sh", "-c", "echo start; sleep 0.2; echo end"), line -> {
+          if ("start".equals(line)) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          } else {
+            running.decrementAndGet();
+          }
+        }));
+      }
+
+      for (Future<CommandPool.Outcome> each : futures) {
+        assertTrue(each.get().isSuccessful());
+      }
+    }
+
+    assertEquals(2, maxRunning.get());
+  }
+
+  @Test public void testPoolReportsOutcomes() throws Exception {
+    try (CommandPool pool = new CommandPool(1, 3)) {
+      final CommandPool.Outcome lines = pool.submit(command("seq", "1", "10")).get();
+      assertTrue(lines.isSuccessful());
+      assertEquals(0, lines.getExitCode());
+      assertEquals(10, lines.getLineCount());
+      assertEquals(Arrays.asList("8", "9", "10"), lines.getTail());
+      assertTrue(lines.getQueueWait(TimeUnit.NANOSECONDS) >= 0);
+      assertTrue(lines.getLatency(TimeUnit.NANOSECONDS) > 0);
+
+      final CommandPool.Outcome failed = pool.submit(command("sh", "-c", "exit 4")).get();
+      assertFalse(failed.isSuccessful());
+      assertEquals(4, failed.getExitCode());
+      assertFalse(failed.getError().isPresent());
+
+      final CommandPool.Outcome missing = pool.submit(command("no-such-command-for-mix")).get();
+      assertFalse(missing.isSuccessful());
+      assertEquals(-1, missing.getExitCode());
+      assertTrue(missing.getError().get() instanceof IOException);
+    }
+  }
+
+  @Test public void testRunAllKeepsOrder() throws Exception {
+    final List<Command> commands = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      // later commands finish first
+      commands.add(command("sh", "-c", "sleep 0." + (4 - i) + "; echo " + i));
+    }
+
+    try (CommandPool pool = new CommandPool(4)) {
+      final List<CommandPool.Outcome> outcomes = pool.runAll(commands);
+
+      assertEquals(4, outcomes.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(commands.get(i).toString(), outcomes.get(i).getCommand());
+        assertEquals(Arrays.asList(String.valueOf(i)), outcomes.get(i).getTail());
+      }
+    }
+  }
+
+  @Test public void testTimeoutDoesNotSpin() throws Exception {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    final long cpuBefore = cpuTime(threads);
+    final List<String> output = Command.of(SILENT, SILENT)
+      .arguments("sh", "-c", "sleep 2; echo done")
+      .executeWithTimeout(10);
+    final long cpuUsed = cpuTime(threads) - cpuBefore;
+
+    assertEquals(Arrays.asList("done"), output);
+
+    // a timeout task scheduled in the past reschedules itself in a busy loop
+    assertTrue(cpuUsed < TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test public void testTimeoutStopsProcess() throws Exception {
+    final StopWatch watch = new StopWatch();
+
+    try {
+      Command.of(SILENT, SILENT).arguments("sleep", "30").executeWithTimeout(1);
+      fail("timed out command should fail");
+    } catch (RuntimeException expected) {
+      assertTrue(expected.getMessage().startsWith("Command failed: sleep 30"));
+    }
+
+    assertTrue(watch.elapsedTime() < 10);
+  }
+
+  private static long cpuTime(ThreadMXBean threads) {
+    long total = 0;
+    for (long each : threads.getAllThreadIds()) {
+      total += Math.max(0, threads.getThreadCpuTime(each));
+    }
+
+    return total;
+  }
+
+  private static Command command(String... args) {
+    return Command.of(SILENT, SILENT).arguments((Object[]) args).build();
+  }
+
+  static class NullWriter extends Writer {
+    @Override public void write(char[] buffer, int offset, int length) {}
+    @Override public void flush() {}
+    @Override public void close() {}
+  }
+}
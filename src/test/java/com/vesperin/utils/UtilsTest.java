@@ -4,7 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.vesperin.base.CommonJdt;
 import com.vesperin.base.Context;
@@ -13,11 +15,16 @@ import com.vesperin.base.JavaParser;
 import com.vesperin.base.ScopeAnalyser;
 import com.vesperin.base.Source;
 import com.vesperin.base.SourceFormat;
+import com.vesperin.base.locations.Location;
 import com.vesperin.base.locations.Locations;
 import com.vesperin.base.visitors.MethodDeclarationVisitor;
 import com.vesperin.base.visitors.SkeletalVisitor;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -27,6 +34,8 @@ import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jface.text.Document;
+import org.eclipse.text.edits.TextEdit;
 import org.junit.Test;
 
 /**
@@ -68,6 +77,67 @@ public class UtilsTest {
 
   }
 
+  @Test public void testFrozenCollections() {
+    final List<Integer> items = new ArrayList<>(Arrays.asList(1, 2, 3));
+
+    final List<Integer> list = Immutable.listOf(items);
+    final Set<Integer>  set  = Immutable.setOf(items);
+
+    // copied once, then handed back as they are
+    items.add(4);
+    assertEquals(Arrays.asList(1, 2, 3), list);
+    assertSame(list, Immutable.listOf(list));
+    assertSame(set, Immutable.setOf(set));
+
+    assertUnsupported(() -> list.add(4));
+    assertUnsupported(() -> list.set(0, 4));
+    assertUnsupported(() -> list.remove(0));
+    assertUnsupported(() -> {
+      final Iterator<Integer> iterator = list.iterator();
+      iterator.next();
+      iterator.remove();
+    });
+    assertUnsupported(() -> set.add(4));
+    assertUnsupported(() -> set.remove(1));
+    assertUnsupported(set::clear);
+    assertUnsupported(() -> {
+      final Iterator<Integer> iterator = set.iterator();
+      iterator.next();
+      iterator.remove();
+    });
+
+    assertEquals(3, list.size());
+    assertEquals(3, set.size());
+  }
+
+  @Test public void testIntersectionSize() {
+    final Set<Integer> a = new HashSet<>(Arrays.asList(1, 2, 3));
+    final Set<Integer> b = new HashSet<>(Arrays.asList(2, 3, 4, 5));
+    final Set<Integer> c = new HashSet<>(Arrays.asList(6, 7));
+    final Set<Integer> e = Collections.emptySet();
+
+    final List<Set<Integer>> sets = Arrays.asList(a, b, c, e);
+    for (Set<Integer> x : sets) {
+      for (Set<Integer> y : sets) {
+        assertEquals(Sets.intersection(x, y).size(), Sets.intersectionSize(x, y));
+      }
+    }
+
+    assertEquals(2, Sets.intersectionSize(a, b));
+    assertEquals(0, Sets.intersectionSize(a, c));
+    assertEquals(0, Sets.intersectionSize(a, e));
+    assertEquals(2.0 / 5, Sets.similarityCoefficient(a, b), 0.0);
+  }
+
+  private static void assertUnsupported(Runnable mutation) {
+    try {
+      mutation.run();
+      fail("mutation should be rejected");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+  }
+
   @Test public void testJDTBasicMethods() {
     final JavaParser parser = new EclipseJavaParser();
 
@@ -88,6 +158,83 @@ public class UtilsTest {
 
   }
 
+  @Test public void testRegionReformatting() throws Exception {
+    final String code = "public class Foo {\n  int a=1;\n  int b=2;\n}";
+    final Source src  = Source.from("Foo", code);
+
+    final int start = code.indexOf("int a");
+    final Location region = Locations.createLocation(src, code, start, start + "int a=1;".length());
+
+    final TextEdit edit = SourceFormat.format(src, region);
+    final Document document = new Document(code);
+    edit.apply(document);
+
+    assertEquals("public class Foo {\n  int a = 1;\n  int b=2;\n}", document.get());
+  }
+
+  @Test public void testOverlappingAndAdjacentRegionReformatting() throws Exception {
+    final String code = "public class Foo {\n  int a=1;\n  int b=2;\n  int c=3;\n  int d=4;\n}";
+    final Source src  = Source.from("Foo", code);
+
+    final int a = code.indexOf("int a");
+    final int b = code.indexOf("int b");
+    final int d = code.indexOf("int d");
+
+    final TextEdit edit = SourceFormat.format(src,
+      // adjacent to each other, and given out of order
+      Locations.createLocation(src, code, d + 4, d + "int d=4;".length()),
+      Locations.createLocation(src, code, d, d + 4),
+      // overlapping
+      Locations.createLocation(src, code, a, b + 4),
+      Locations.createLocation(src, code, a + 4, b + "int b=2;".length())
+    );
+
+    final Document document = new Document(code);
+    edit.apply(document);
+
+    assertEquals(
+      "public class Foo {\n  int a = 1;\n  int b = 2;\n  int c=3;\n  int d = 4;\n}",
+      document.get()
+    );
+  }
+
+  @Test public void testMemberReformatting() throws Exception {
+    final String code = "public class Foo {\n  int a=1;\n  class Bar {\n  void m(){int x=1;}\n  }\n  int b=2;\n}";
+    final Source src  = Source.from("Foo", code);
+
+    final Context context = new EclipseJavaParser().parseJava(src);
+
+    final int x = code.indexOf("int x");
+    final int b = code.indexOf("int b");
+    final TextEdit edit = SourceFormat.format(context,
+      Locations.createLocation(src, code, x, x + "int x=1;".length()),
+      Locations.createLocation(src, code, b, b + "int b=2;".length())
+    );
+
+    final Document document = new Document(code);
+    edit.apply(document);
+
+    assertEquals(
+      "public class Foo {\n  int a=1;\n  class Bar {\n    void m() {\n      int x = 1;\n    }\n  }\n  int b = 2;\n}",
+      document.get()
+    );
+  }
+
+  @Test public void testParallelSourceReformatting() {
+    final Source unformatted = Source.from("Foo",
+      "public class Foo {public List<String> exit(){return new ArrayList<>();}}"
+    );
+
+    final List<Source> formatted = SourceFormat.formatAll(
+      Collections.nCopies(16, unformatted)
+    );
+
+    assertEquals(16, formatted.size());
+    for (Source each : formatted) {
+      assertEquals(SRC.getContent(), each.getContent().trim());
+    }
+  }
+
 
   @Test public void testTypeNormalization() {
     final JavaParser parser = new EclipseJavaParser();